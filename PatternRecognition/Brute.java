@@ -1,44 +1,56 @@
-public class Brute {
-
-  public static void main(String[] args) {
-
-    if (args.length != 1) return;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 
+public class Brute {
 
-    In read = new In(args[0]);
-    int size = read.readInt();
-    Point[] points = new Point[size];
-
-    for(int i = 0; i < size; i++) {
-      points[i] = new Point(read.readInt(), read.readInt());
+  // usage: java Brute input [-headless] [-png file | -svg file]
+  // Plots the points and prints every segment through 4 or more of
+  // them. The search is Fast.segments, the reference the other
+  // detectors are checked against. -headless prints the segments
+  // without drawing anything, -png or -svg draw to an image file
+  // instead of the screen.
+  public static void main(String[] args) throws IOException {
+
+    if (args.length < 1) return;
+
+    boolean headless = false;
+    Renderer.Target target = Renderer.Target.SCREEN;
+    Path image = null;
+    for (int k = 1; k < args.length; k++) {
+      if (args[k].equals("-headless")) headless = true;
+      if (args[k].equals("-png")) {
+        target = Renderer.Target.PNG;
+        image = Paths.get(args[++k]);
+      }
+      if (args[k].equals("-svg")) {
+        target = Renderer.Target.SVG;
+        image = Paths.get(args[++k]);
+      }
     }
 
-    // Plot the points from the points array
-    StdDraw.setXscale(0, 32768);
-    StdDraw.setYscale(0, 32768);
-    StdDraw.show(0);
-    StdDraw.setPenRadius(0.01);  // make the points a bit larger
-
-    for (int i = 0; i < size; i++) {
-        points[i].draw();
+    // Text or binary, see PointReader
+    PointSet points = PointReader.read(Paths.get(args[0]));
+
+    // Drawing happens on the renderer's own thread while
+    // the segments are searched for
+    Renderer renderer = null;
+    if (image != null) renderer = new Renderer(target, image, 1024, 1024);
+    else if (!headless) renderer = new Renderer(512, 512);
+    if (renderer != null) renderer.points(points);
+
+    List<int[]> segments = Fast.segments(points);
+    for (int[] segment : segments) {
+      System.out.println(Fast.toString(points, segment));
+      if (renderer != null) {
+        int first = segment[0];
+        int last = segment[segment.length - 1];
+        renderer.segment(points.x(first), points.y(first),
+                         points.x(last), points.y(last));
+      }
     }
-    // display to screen all at once
-    StdDraw.show(0);
-
-    // reset the pen radius
-    StdDraw.setPenRadius();
-
-
-    // Now to brute force this problem
-    // for (int first = 0; first < size; first++) {
-    //   for (int second = first + 1; second < size; second++) {
-    //     for (int third = second + 1; third < size; third++) {
-    //       for (int fourth = fourth + 1; fourth < size; fourth++) {
-    //         if ()
-    //       }
-    //     }
-    //   }
-    // }
 
+    if (renderer != null) renderer.close();
   }
 }
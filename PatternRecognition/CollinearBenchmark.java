@@ -0,0 +1,92 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class CollinearBenchmark {
+
+  private static final long SEED = 20150101L;
+
+  // usage: java CollinearBenchmark [N ...]
+  // Random points in the 32768 by 32768 square with a few planted
+  // lines, timing the sort and the hash detection on the same input
+  public static void main(String[] args) {
+
+    int[] sizes = { 10000, 50000 };
+    if (args.length > 0) {
+      sizes = new int[args.length];
+      for (int k = 0; k < args.length; k++) {
+        sizes[k] = Integer.parseInt(args[k]);
+      }
+    }
+
+    checkCopies();
+
+    for (int N : sizes) {
+      PointSet points = points(N, new SplittableRandom(SEED));
+
+      long start = System.nanoTime();
+      List<int[]> sorted = Fast.segments(points);
+      long sortTime = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      List<int[]> hashed = Fast.segmentsHashed(points);
+      long hashTime = System.nanoTime() - start;
+
+      // Both detectors report the same segments in the same order
+      if (sorted.size() != hashed.size()) throw new AssertionError();
+      for (int k = 0; k < sorted.size(); k++) {
+        if (!Arrays.equals(sorted.get(k), hashed.get(k))) {
+          throw new AssertionError();
+        }
+      }
+
+      System.out.printf("N = %d, %d segments%n", N, sorted.size());
+      System.out.printf("sort  %10.1f ms  %6.1f M pairs/s%n",
+                        sortTime / 1e6, (double) N * N * 1e3 / sortTime);
+      System.out.printf("hash  %10.1f ms  %6.1f M pairs/s%n",
+                        hashTime / 1e6, (double) N * N * 1e3 / hashTime);
+    }
+  }
+
+  // Copies of a point are on no line with it. Three copies used to
+  // come out of the hash detection as a segment of their own.
+  private static void checkCopies() {
+
+    Point[] points = {
+      new Point(1000, 1000), new Point(1000, 1000), new Point(1000, 1000),
+      new Point(1000, 1000), new Point(2000, 2000), new Point(3000, 3000),
+      new Point(4000, 4000), new Point(5000, 1000), new Point(7000, 9000)
+    };
+    List<Point[]> sorted = Fast.segments(points);
+    List<Point[]> hashed = Fast.segmentsHashed(points);
+    if (sorted.size() != hashed.size()) throw new AssertionError();
+    for (int k = 0; k < sorted.size(); k++) {
+      if (!Arrays.equals(sorted.get(k), hashed.get(k))) {
+        throw new AssertionError();
+      }
+    }
+  }
+
+  // N points, one in ten of them on 4 point lines
+  static PointSet points(int N, SplittableRandom random) {
+
+    int[] xs = new int[N];
+    int[] ys = new int[N];
+    int k = 0;
+    while (k + 4 <= N / 10) {
+      int x = random.nextInt(16384);
+      int y = random.nextInt(16384);
+      int dx = random.nextInt(1, 100);
+      int dy = random.nextInt(-100, 100);
+      for (int step = 0; step < 4; step++) {
+        xs[k] = x + step * dx;
+        ys[k++] = y + 8192 + step * dy;
+      }
+    }
+    while (k < N) {
+      xs[k] = random.nextInt(32768);
+      ys[k++] = random.nextInt(32768);
+    }
+    return new PointSet(xs, ys);
+  }
+}
@@ -0,0 +1,207 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+public class CollinearSet {
+
+  private int[] xs = new int[16];
+  private int[] ys = new int[16];
+  private int size;
+
+  private SlopeTable table = new SlopeTable(16);
+
+  // Every line with 4 or more points on it, by its direction and offset
+  private Map<Line, Segment> lines = new HashMap<Line, Segment>();
+  private List<Segment> segments = new ArrayList<Segment>();
+
+  // A growing set of points that keeps its maximal segments through
+  // 4 or more points up to date. Adding a point groups the points
+  // already in the set by their slope to it, a group of 3 starts a
+  // new segment and a bigger group extends the segment of its line.
+  // That is O(N) expected time per point instead of a full search.
+  public CollinearSet() {
+  }
+
+  // add the point (x, y) and return its index
+  public int add(int x, int y) {
+
+    if (size == xs.length) {
+      xs = Arrays.copyOf(xs, 2 * size);
+      ys = Arrays.copyOf(ys, 2 * size);
+      table = new SlopeTable(2 * size);
+    }
+    int p = size;
+
+    // Copies of p are on no line with it, like in Fast
+    table.clear();
+    for (int q = 0; q < p; q++) {
+      long key = Point.slopeKey(x - xs[q], y - ys[q]);
+      if (key != Long.MIN_VALUE) table.add(key, q);
+    }
+
+    xs[p] = x;
+    ys[p] = y;
+    size++;
+
+    for (int g = 0; g < table.groups(); g++) {
+      int count = table.count(g);
+      if (count < 3) continue;
+
+      // The direction dy / dx and the offset dy * x - dx * y are
+      // the same for every point on the line
+      long key = table.key(g);
+      long dy = key >> 32;
+      long dx = (int) key;
+      Line line = new Line(key, dy * x - dx * y);
+
+      Segment segment = lines.get(line);
+      if (segment == null) {
+        segment = new Segment();
+        for (int q = table.first(g); q != -1; q = table.next(q)) {
+          segment.add(q);
+        }
+        lines.put(line, segment);
+        segments.add(segment);
+      }
+      segment.add(p);
+    }
+    return p;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int x(int i) {
+    return xs[i];
+  }
+
+  public int y(int i) {
+    return ys[i];
+  }
+
+  // the points added so far
+  public PointSet points() {
+    return new PointSet(Arrays.copyOf(xs, size), Arrays.copyOf(ys, size));
+  }
+
+  // number of maximal segments through 4 or more points
+  public int segmentCount() {
+    return segments.size();
+  }
+
+  // The current segments, each one as the indices of its points in
+  // natural order, in the order the segments came into being
+  public List<int[]> segments() {
+
+    PointSet points = points();
+    List<int[]> result = new ArrayList<int[]>(segments.size());
+    for (Segment segment : segments) {
+      int[] indices = Arrays.copyOf(segment.points, segment.size);
+
+      // Insertion sort, points are added in no particular order
+      for (int i = 1; i < indices.length; i++) {
+        int item = indices[i];
+        int j = i;
+        while (j > 0 && points.compare(item, indices[j - 1]) < 0) {
+          indices[j] = indices[j - 1];
+          j--;
+        }
+        indices[j] = item;
+      }
+      result.add(indices);
+    }
+    return result;
+  }
+
+  private static final class Line {
+
+    private final long slope;
+    private final long offset;
+
+    Line(long slope, long offset) {
+      this.slope = slope;
+      this.offset = offset;
+    }
+
+    public boolean equals(Object other) {
+      if (!(other instanceof Line)) return false;
+      Line that = (Line) other;
+      return slope == that.slope && offset == that.offset;
+    }
+
+    public int hashCode() {
+      long h = slope * 0x9E3779B97F4A7C15L + offset;
+      return (int) (h ^ (h >>> 32));
+    }
+  }
+
+  private static final class Segment {
+
+    private int[] points = new int[4];
+    private int size;
+
+    void add(int p) {
+      if (size == points.length) points = Arrays.copyOf(points, 2 * size);
+      points[size++] = p;
+    }
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // segments as sorted strings, to compare them as sets
+  private static List<String> canonical(List<int[]> segments) {
+
+    List<String> strings = new ArrayList<String>();
+    for (int[] segment : segments) {
+      strings.add(Arrays.toString(segment));
+    }
+    strings.sort(null);
+    return strings;
+  }
+
+  // unit testing, compares against Fast while points are added
+  public static void main(String[] args) {
+
+    print("Check the example of the input files");
+    CollinearSet example = new CollinearSet();
+    int[][] input = {
+      { 10000, 0 }, { 0, 10000 }, { 3000, 7000 }, { 7000, 3000 },
+      { 20000, 21000 }, { 3000, 4000 }, { 14000, 15000 }, { 6000, 7000 }
+    };
+    for (int[] point : input) {
+      example.add(point[0], point[1]);
+    }
+    assert (example.segmentCount() == 2);
+    print("Passed");
+
+    print("Check against Fast while points are added");
+    SplittableRandom random = new SplittableRandom(18);
+    for (int round = 0; round < 20; round++) {
+      CollinearSet set = new CollinearSet();
+      int spread = random.nextInt(8, 16);
+      boolean[][] taken = new boolean[spread][spread];
+      for (int k = 0; k < 60; k++) {
+        // Distinct points on a small lattice, so many lines
+        int x = random.nextInt(spread);
+        int y = random.nextInt(spread);
+        if (taken[x][y]) continue;
+        taken[x][y] = true;
+
+        set.add(1000 * x, 1000 * y);
+        if (k % 5 == 4) {
+          List<int[]> expected = Fast.segmentsHashed(set.points());
+          assert (canonical(set.segments()).equals(canonical(expected)));
+        }
+      }
+    }
+    print("Passed");
+
+    print("Operations Successful");
+  }
+}
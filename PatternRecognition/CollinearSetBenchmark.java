@@ -0,0 +1,36 @@
+import java.util.SplittableRandom;
+
+public class CollinearSetBenchmark {
+
+  private static final long SEED = 20150101L;
+
+  // usage: java CollinearSetBenchmark [N]
+  // Adds N points to a CollinearSet one at a time and compares the
+  // cost of the last insertions with rerunning Fast on all N points
+  public static void main(String[] args) {
+
+    int N = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+    PointSet points = CollinearBenchmark.points(N, new SplittableRandom(SEED));
+
+    CollinearSet set = new CollinearSet();
+    long start = System.nanoTime();
+    long lastStart = start;
+    int last = Math.max(1, N / 100);
+    for (int i = 0; i < N; i++) {
+      if (i == N - last) lastStart = System.nanoTime();
+      set.add(points.x(i), points.y(i));
+    }
+    long end = System.nanoTime();
+
+    long rerun = System.nanoTime();
+    int expected = Fast.segmentsHashed(points).size();
+    rerun = System.nanoTime() - rerun;
+
+    if (expected != set.segmentCount()) throw new AssertionError();
+    System.out.printf("N = %d, %d segments%n", N, set.segmentCount());
+    System.out.printf("all insertions      %10.1f ms%n", (end - start) / 1e6);
+    System.out.printf("one late insertion  %10.3f ms%n",
+                      (end - lastStart) / 1e6 / last);
+    System.out.printf("Fast on all points  %10.1f ms%n", rerun / 1e6);
+  }
+}
@@ -0,0 +1,283 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Fast {
+
+  // Origins handed to a thread at a time by segmentsParallel
+  private static final int BLOCK_SIZE = 64;
+
+  // Every maximal line segment through 4 or more of the points, each
+  // one as its points in natural order. For every origin the other
+  // points are sorted by the slope they make with it, points on one
+  // line through the origin end up next to each other.
+  public static List<Point[]> segments(Point[] points) {
+    return toPoints(points, segments(new PointSet(points)));
+  }
+
+  // The same segments as segments, in the same order, but for every
+  // origin the other points are grouped in a hash table keyed on
+  // their exact slope instead of sorted, O(N^2) expected time.
+  public static List<Point[]> segmentsHashed(Point[] points) {
+    return toPoints(points, segmentsHashed(new PointSet(points)));
+  }
+
+  // segmentsHashed on parallelism threads, see below
+  public static List<Point[]> segmentsParallel(Point[] points,
+                                               int parallelism) {
+    return toPoints(points, segmentsParallel(new PointSet(points),
+                                             parallelism));
+  }
+
+  // The segments of points, each one as the indices of its points
+  // in natural order, found by sorting around every origin
+  public static List<int[]> segments(PointSet points) {
+
+    List<int[]> segments = new ArrayList<int[]>();
+    int size = points.size();
+
+    int[] sorted = points.sortedOrder();
+    int[] bySlope = new int[size];
+    SlopeSorter sorter = new SlopeSorter(points, size);
+
+    for (int i = 0; i < size; i++) {
+      int origin = sorted[i];
+
+      // The sort is stable, so points with equal slopes
+      // stay in natural order
+      System.arraycopy(sorted, 0, bySlope, 0, size);
+      sorter.sort(origin, bySlope, 0, size);
+
+      int first = 0;
+      while (first < size) {
+        int last = first + 1;
+        while (last < size
+               && points.compareSlopes(origin, bySlope[first], bySlope[last]) == 0) {
+          last++;
+        }
+
+        // Only report the segment from its smallest point,
+        // that way every segment comes out once
+        if (last - first >= 3 && points.compare(origin, bySlope[first]) < 0) {
+          int[] segment = new int[last - first + 1];
+          segment[0] = origin;
+          System.arraycopy(bySlope, first, segment, 1, last - first);
+          segments.add(segment);
+        }
+        first = last;
+      }
+    }
+    return segments;
+  }
+
+  // The same segments as segments(PointSet) found with a hash table
+  public static List<int[]> segmentsHashed(PointSet points) {
+
+    int[] sorted = points.sortedOrder();
+
+    List<int[]> segments = new ArrayList<int[]>();
+    scan(points, sorted, 0, sorted.length, new SlopeTable(sorted.length),
+         segments);
+    return segments;
+  }
+
+  // The same segments as segmentsHashed, in the same order, with the
+  // origins split across parallelism threads. The origins are cut into
+  // blocks that the threads take in turn, and each thread reuses one
+  // SlopeTable for all of its origins. A segment is only found from
+  // its smallest point, so no two blocks report the same segment and
+  // joining the blocks in order gives the same output for any number
+  // of threads.
+  public static List<int[]> segmentsParallel(final PointSet points,
+                                             int parallelism) {
+
+    if (parallelism < 1) throw new IllegalArgumentException();
+
+    final int[] sorted = points.sortedOrder();
+
+    final int size = sorted.length;
+    final int blocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    final List<List<int[]>> found = new ArrayList<List<int[]>>();
+    for (int b = 0; b < blocks; b++) {
+      found.add(null);
+    }
+    final AtomicInteger nextBlock = new AtomicInteger();
+
+    int threads = Math.max(1, Math.min(parallelism, blocks));
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[threads];
+      for (int t = 0; t < threads; t++) {
+        tasks[t] = pool.submit(new Runnable() {
+          public void run() {
+            SlopeTable table = new SlopeTable(size);
+            int b;
+            while ((b = nextBlock.getAndIncrement()) < blocks) {
+              List<int[]> segments = new ArrayList<int[]>();
+              int from = b * BLOCK_SIZE;
+              scan(points, sorted, from, Math.min(size, from + BLOCK_SIZE),
+                   table, segments);
+              found.set(b, segments);
+            }
+          }
+        });
+      }
+      for (ForkJoinTask<?> task : tasks) {
+        task.join();
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    List<int[]> segments = new ArrayList<int[]>();
+    for (List<int[]> block : found) {
+      segments.addAll(block);
+    }
+    return segments;
+  }
+
+  // Add the segments found from the origins sorted[from] to
+  // sorted[to - 1] to segments, table is only scratch space
+  private static void scan(PointSet points, int[] sorted, int from, int to,
+                           SlopeTable table, List<int[]> segments) {
+
+    int size = sorted.length;
+    int start = segments.size();
+
+    for (int i = from; i < to; i++) {
+      int origin = sorted[i];
+
+      // Points are added in natural order, so every group lists
+      // its points in natural order. Copies of the origin are on
+      // no line with it, like the sort they are left out.
+      table.clear();
+      for (int j = 0; j < size; j++) {
+        long key = points.slopeKey(origin, sorted[j]);
+        if (key != Long.MIN_VALUE) table.add(key, j);
+      }
+
+      for (int g = 0; g < table.groups(); g++) {
+        int count = table.count(g);
+
+        // Only report the segment from its smallest point
+        if (count >= 3 && table.first(g) > i) {
+          int[] segment = new int[count + 1];
+          segment[0] = origin;
+          int k = 1;
+          for (int j = table.first(g); j != -1; j = table.next(j)) {
+            segment[k++] = sorted[j];
+          }
+          segments.add(segment);
+        }
+      }
+    }
+
+    // Groups come out in the order their first point was added,
+    // put the segments of each origin in slope order like segments
+    sortBySlope(points, segments.subList(start, segments.size()));
+  }
+
+  private static void sortBySlope(final PointSet points,
+                                  List<int[]> segments) {
+
+    int from = 0;
+    while (from < segments.size()) {
+      final int origin = segments.get(from)[0];
+      int to = from + 1;
+      while (to < segments.size() && segments.get(to)[0] == origin) to++;
+
+      segments.subList(from, to).sort(new Comparator<int[]>() {
+        public int compare(int[] a, int[] b) {
+          return points.compareSlopes(origin, a[1], b[1]);
+        }
+      });
+      from = to;
+    }
+  }
+
+  private static List<Point[]> toPoints(Point[] points, List<int[]> found) {
+
+    List<Point[]> segments = new ArrayList<Point[]>(found.size());
+    for (int[] indices : found) {
+      Point[] segment = new Point[indices.length];
+      for (int k = 0; k < indices.length; k++) {
+        segment[k] = points[indices[k]];
+      }
+      segments.add(segment);
+    }
+    return segments;
+  }
+
+  // "p -> q -> r -> s", the way Fast and Brute print a segment
+  static String toString(PointSet points, int[] segment) {
+
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i < segment.length; i++) {
+      if (i > 0) line.append(" -> ");
+      line.append(points.toString(segment[i]));
+    }
+    return line.toString();
+  }
+
+  // usage: java Fast input [-headless] [-hash] [-threads T]
+  //                         [-png file | -svg file]
+  // -headless prints the segments without drawing anything,
+  // -hash groups the points by slope with a hash table,
+  // -threads does the same on T threads and -png or -svg
+  // draw to an image file instead of the screen
+  public static void main(String[] args) throws IOException {
+
+    if (args.length < 1) return;
+
+    boolean headless = false;
+    boolean hash = false;
+    int threads = 0;
+    Renderer.Target target = Renderer.Target.SCREEN;
+    Path image = null;
+    for (int k = 1; k < args.length; k++) {
+      if (args[k].equals("-headless")) headless = true;
+      if (args[k].equals("-hash")) hash = true;
+      if (args[k].equals("-threads")) threads = Integer.parseInt(args[++k]);
+      if (args[k].equals("-png")) {
+        target = Renderer.Target.PNG;
+        image = Paths.get(args[++k]);
+      }
+      if (args[k].equals("-svg")) {
+        target = Renderer.Target.SVG;
+        image = Paths.get(args[++k]);
+      }
+    }
+
+    // Text or binary, see PointReader
+    PointSet points = PointReader.read(Paths.get(args[0]));
+
+    // Drawing happens on the renderer's own thread while
+    // the segments are searched for
+    Renderer renderer = null;
+    if (image != null) renderer = new Renderer(target, image, 1024, 1024);
+    else if (!headless) renderer = new Renderer(512, 512);
+    if (renderer != null) renderer.points(points);
+
+    List<int[]> segments;
+    if (threads > 0) segments = segmentsParallel(points, threads);
+    else if (hash) segments = segmentsHashed(points);
+    else segments = segments(points);
+    for (int[] segment : segments) {
+      System.out.println(toString(points, segment));
+      if (renderer != null) {
+        int first = segment[0];
+        int last = segment[segment.length - 1];
+        renderer.segment(points.x(first), points.y(first),
+                         points.x(last), points.y(last));
+      }
+    }
+
+    if (renderer != null) renderer.close();
+  }
+}
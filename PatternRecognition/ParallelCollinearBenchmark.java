@@ -0,0 +1,43 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class ParallelCollinearBenchmark {
+
+  private static final long SEED = 20150101L;
+
+  // usage: java ParallelCollinearBenchmark [N [maxThreads]]
+  // Runs the hash detection on the same N points with 1, 2, 4, ...
+  // threads and prints the speedup over the single threaded run.
+  public static void main(String[] args) {
+
+    int N = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+
+    PointSet points = CollinearBenchmark.points(N, new SplittableRandom(SEED));
+    System.out.printf("N = %d, %d processors%n", N,
+                      Runtime.getRuntime().availableProcessors());
+
+    long start = System.nanoTime();
+    List<int[]> expected = Fast.segmentsHashed(points);
+    long baseTime = System.nanoTime() - start;
+    System.out.printf("segmentsHashed       %10.1f ms%n", baseTime / 1e6);
+
+    for (int threads = 1; threads <= maxThreads; threads *= 2) {
+      start = System.nanoTime();
+      List<int[]> segments = Fast.segmentsParallel(points, threads);
+      long time = System.nanoTime() - start;
+
+      // The output must not depend on the number of threads
+      if (segments.size() != expected.size()) throw new AssertionError();
+      for (int k = 0; k < segments.size(); k++) {
+        if (!Arrays.equals(segments.get(k), expected.get(k))) {
+          throw new AssertionError();
+        }
+      }
+
+      System.out.printf("segmentsParallel %2d  %10.1f ms  %5.2fx%n",
+                        threads, time / 1e6, (double) baseTime / time);
+    }
+  }
+}
@@ -0,0 +1,110 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class PatternWorkload implements jmh.Patterns {
+
+  private static final long SEED = 20150101L;
+
+  private final PointSet set;
+  private final Point[] points;
+  private final int size;
+
+  // scratch space for the sorts
+  private final Point[] scratch;
+  private final int[] order;
+  private final int[] indices;
+  private final SlopeSorter sorter;
+
+  // The points of input kind and size for jmh.PatternBenchmark, which
+  // creates this by name, see jmh.Patterns
+  public PatternWorkload(String kind, int size) {
+
+    set = input(kind, size);
+    this.size = size;
+    points = new Point[size];
+    for (int i = 0; i < size; i++) {
+      points[i] = new Point(set.x(i), set.y(i));
+    }
+
+    scratch = new Point[size];
+    order = set.sortedOrder();
+    indices = new int[size];
+    sorter = new SlopeSorter(set, size);
+  }
+
+  public double slopeTo() {
+    double total = 0;
+    Point origin = points[0];
+    for (int i = 1; i < size; i++) {
+      total += origin.slopeTo(points[i]);
+    }
+    return total;
+  }
+
+  public long slopeKey() {
+    long total = 0;
+    Point origin = points[0];
+    for (int i = 1; i < size; i++) {
+      total += origin.slopeKey(points[i]);
+    }
+    return total;
+  }
+
+  public int compareTo() {
+    int total = 0;
+    for (int i = 1; i < size; i++) {
+      total += points[i - 1].compareTo(points[i]);
+    }
+    return total;
+  }
+
+  public Object sortSlopeOrder() {
+    System.arraycopy(points, 0, scratch, 0, size);
+    Arrays.sort(scratch, points[0].SLOPE_ORDER);
+    return scratch;
+  }
+
+  public int[] sortSlopeSorter() {
+    System.arraycopy(order, 0, indices, 0, size);
+    sorter.sort(order[0], indices, 0, size);
+    return indices;
+  }
+
+  public List<int[]> detectSort() {
+    return Fast.segments(set);
+  }
+
+  public List<int[]> detectHash() {
+    return Fast.segmentsHashed(set);
+  }
+
+  // The inputs: points on a square lattice, uniformly random points,
+  // and all points on four lines through one point, which makes
+  // every slope sort full of ties and every segment huge
+  static PointSet input(String kind, int size) {
+
+    SplittableRandom random = new SplittableRandom(SEED);
+    int[] xs = new int[size];
+    int[] ys = new int[size];
+    int side = (int) Math.ceil(Math.sqrt(size));
+
+    for (int i = 0; i < size; i++) {
+      if (kind.equals("grid")) {
+        xs[i] = (i % side) * (PointGrid.SIZE / side);
+        ys[i] = (i / side) * (PointGrid.SIZE / side);
+      } else if (kind.equals("random")) {
+        xs[i] = random.nextInt(PointGrid.SIZE);
+        ys[i] = random.nextInt(PointGrid.SIZE);
+      } else if (kind.equals("adversarial")) {
+        int step = 1 + i / 4;
+        int line = i % 4;
+        xs[i] = 16384 + (line == 1 ? 0 : line == 3 ? -step : step);
+        ys[i] = 16384 + (line == 0 ? 0 : step);
+      } else {
+        throw new IllegalArgumentException("no input " + kind);
+      }
+    }
+    return new PointSet(xs, ys);
+  }
+}
@@ -14,6 +14,14 @@ public class Point implements Comparable<Point> {
         this.y = y;
     }
 
+    int x() {
+        return x;
+    }
+
+    int y() {
+        return y;
+    }
+
     // plot this point to standard drawing
     public void draw() {
         StdDraw.point(x, y);
@@ -24,28 +32,98 @@ public class Point implements Comparable<Point> {
         StdDraw.line(this.x, this.y, that.x, that.y);
     }
 
-    // Sort by Slope Order
+    // Sort by Slope Order. Compares the slopes exactly by cross
+    // multiplying the coordinate differences, with no doubles
     private class SlopeOrder implements Comparator<Point> {
       public int compare(Point first, Point second) {
-        double slopeToFirst = Point.this.slopeTo(first);
-        double slopeToSecond = Point.this.slopeTo(second);
+        return compareSlopes(first.x - Point.this.x, first.y - Point.this.y,
+                             second.x - Point.this.x, second.y - Point.this.y);
+      }
+    }
 
-        if (slopeToFirst < slopeToSecond) return -1;
-        if (slopeToFirst > slopeToSecond) return 1;
+    // compare the slope dy1 / dx1 to the slope dy2 / dx2, a zero
+    // difference comes first and vertical lines last. Shared with
+    // PointSet so both orders stay the same.
+    static int compareSlopes(int dx1, int dy1, int dx2, int dy2) {
+
+        // Equal points come first and vertical lines last
+        int kind1 = kind(dx1, dy1);
+        int kind2 = kind(dx2, dy2);
+        if (kind1 != kind2) return kind1 < kind2 ? -1 : 1;
+        if (kind1 != FINITE) return 0;
+
+        // Point the differences to the right so that
+        // dy / dx compares the same way as dy * dx'
+        if (dx1 < 0) {
+          dx1 = -dx1;
+          dy1 = -dy1;
+        }
+        if (dx2 < 0) {
+          dx2 = -dx2;
+          dy2 = -dy2;
+        }
+
+        long left = (long) dy1 * dx2;
+        long right = (long) dy2 * dx1;
+        if (left < right) return -1;
+        if (left > right) return 1;
         return 0;
-      }
+    }
+
+    private static final int DEGENERATE = 0;
+    private static final int FINITE = 1;
+    private static final int VERTICAL = 2;
+
+    private static int kind(int dx, int dy) {
+      if (dx != 0) return FINITE;
+      if (dy != 0) return VERTICAL;
+      return DEGENERATE;
     }
 
     // slope between this point and that point
     public double slopeTo(Point that) {
-        // Check for a vertical line
-        if (this.x == that.x) return Double.POSITIVE_INFINITY;
         // Check if the points are equal
         if (this.compareTo(that) == 0) return Double.NEGATIVE_INFINITY;
+        // Check for a vertical line
+        if (this.x == that.x) return Double.POSITIVE_INFINITY;
         // Check if they the slope is horizontal
         if (this.y == that.y) return 0.0;
 
-        return (this.y - that.y) / (this.x - that.x);
+        return (double) (that.y - this.y) / (that.x - this.x);
+    }
+
+    // The exact slope between this point and that point as the reduced
+    // fraction dy / dx with dx > 0 packed into a long, dy in the high
+    // half and dx in the low half. Two points have the same slope to
+    // this point exactly when their keys are equal. Vertical lines are
+    // 1 / 0, horizontal lines 0 / 1 and an equal point is Long.MIN_VALUE.
+    public long slopeKey(Point that) {
+        return slopeKey(that.x - this.x, that.y - this.y);
+    }
+
+    static long slopeKey(int dx, int dy) {
+        if (dx == 0 && dy == 0) return Long.MIN_VALUE;
+        if (dx == 0) return 1L << 32;
+        if (dy == 0) return 1L;
+
+        if (dx < 0) {
+          dx = -dx;
+          dy = -dy;
+        }
+
+        int divisor = gcd(dx, Math.abs(dy));
+        dx /= divisor;
+        dy /= divisor;
+        return ((long) dy << 32) | dx;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+          int r = a % b;
+          a = b;
+          b = r;
+        }
+        return a;
     }
 
     // is this point lexicographically smaller than that one?
@@ -69,8 +147,62 @@ public class Point implements Comparable<Point> {
         return "(" + x + ", " + y + ")";
     }
 
+    private static void print(String str) {
+      System.out.println(str);
+    }
+
     // unit test
     public static void main(String[] args) {
-      // TODO: Implement this
+
+      Point origin = new Point(3000, 4000);
+
+      print("Check slopes that integer division used to merge");
+      Point steep = new Point(3003, 4005);
+      Point shallow = new Point(3003, 4004);
+      assert (origin.slopeTo(steep) > origin.slopeTo(shallow));
+      assert (origin.SLOPE_ORDER.compare(steep, shallow) > 0);
+      assert (origin.SLOPE_ORDER.compare(shallow, steep) < 0);
+      assert (origin.slopeKey(steep) != origin.slopeKey(shallow));
+      print("Passed");
+
+      print("Check special slopes");
+      Point same = new Point(3000, 4000);
+      Point above = new Point(3000, 9000);
+      Point right = new Point(9000, 4000);
+      Point left = new Point(0, 4000);
+      assert (origin.slopeTo(same) == Double.NEGATIVE_INFINITY);
+      assert (origin.slopeTo(above) == Double.POSITIVE_INFINITY);
+      assert (origin.slopeTo(right) == 0.0);
+      assert (origin.slopeTo(left) == 0.0);
+      assert (origin.SLOPE_ORDER.compare(same, right) < 0);
+      assert (origin.SLOPE_ORDER.compare(above, right) > 0);
+      assert (origin.SLOPE_ORDER.compare(left, right) == 0);
+      assert (origin.slopeKey(left) == origin.slopeKey(right));
+      print("Passed");
+
+      print("Check points on both sides of the origin");
+      Point ahead = new Point(3002, 4006);
+      Point behind = new Point(2999, 3997);
+      assert (origin.SLOPE_ORDER.compare(ahead, behind) == 0);
+      assert (origin.slopeKey(ahead) == origin.slopeKey(behind));
+      assert (origin.slopeKey(ahead) == ((3L << 32) | 1));
+      print("Passed");
+
+      print("Check the comparator against the slopes at the corners");
+      Point corner = new Point(0, 0);
+      Point[] points = {
+        new Point(32767, 32766), new Point(32766, 32767), new Point(32767, 1),
+        new Point(1, 32767), new Point(32767, 32767), new Point(32767, 0)
+      };
+      for (Point a : points) {
+        for (Point b : points) {
+          int expected = Double.compare(corner.slopeTo(a), corner.slopeTo(b));
+          assert (Integer.signum(corner.SLOPE_ORDER.compare(a, b)) == expected);
+          assert ((corner.slopeKey(a) == corner.slopeKey(b)) == (expected == 0));
+        }
+      }
+      print("Passed");
+
+      print("Operations Successful");
     }
 }
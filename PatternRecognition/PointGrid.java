@@ -0,0 +1,315 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+public class PointGrid {
+
+  // The coordinate space of the input files
+  public static final int SIZE = 32768;
+
+  private final PointSet points;
+  private final int shift;                   // cell of x is x >> shift
+  private final int side;                    // cells along each axis
+  private final int[] cellStart;             // first entry of every cell
+  private final int[] cellPoints;            // point indices by cell
+
+  // scratch space for the queries
+  private int[] candidates = new int[16];
+  private SlopeTable table;
+
+  // Uniform grid over points in the square from (0, 0) to (SIZE, SIZE),
+  // with about two points per cell. Queries only look at the cells that
+  // overlap the window they ask about. The grid is not safe for use by
+  // two threads at the same time, the queries share scratch space.
+  public PointGrid(PointSet points) {
+
+    this.points = points;
+    int size = points.size();
+
+    // Cells are a power of two wide, between 8 and SIZE
+    int cells = Integer.highestOneBit(Math.max(1, size / 2));
+    int bits = 0;
+    while ((1L << (2 * (bits + 1))) <= cells && bits < 12) bits++;
+    side = 1 << bits;
+    shift = 15 - bits;
+
+    // Counting sort of the points by cell, cells in row major order
+    cellStart = new int[side * side + 1];
+    for (int i = 0; i < size; i++) {
+      cellStart[cell(i) + 1]++;
+    }
+    for (int c = 0; c < side * side; c++) {
+      cellStart[c + 1] += cellStart[c];
+    }
+    cellPoints = new int[size];
+    int[] next = Arrays.copyOf(cellStart, side * side);
+    for (int i = 0; i < size; i++) {
+      cellPoints[next[cell(i)]++] = i;
+    }
+  }
+
+  private int cell(int i) {
+
+    int x = points.x(i);
+    int y = points.y(i);
+    if (x < 0 || x > SIZE || y < 0 || y > SIZE) {
+      throw new IllegalArgumentException("point " + points.toString(i)
+                                         + " outside the grid");
+    }
+    return cellRow(y) * side + cellRow(x);
+  }
+
+  // cell along one axis of coordinate v, SIZE itself goes
+  // in the last cell
+  private int cellRow(int v) {
+    return Math.min(side - 1, Math.max(0, v) >> shift);
+  }
+
+  public PointSet points() {
+    return points;
+  }
+
+  // indices of the points with xmin <= x <= xmax and ymin <= y <= ymax,
+  // in no particular order
+  public int[] range(int xmin, int ymin, int xmax, int ymax) {
+    int count = collect(xmin, ymin, xmax, ymax);
+    return Arrays.copyOf(candidates, count);
+  }
+
+  // Put the points in the window into candidates and return how many
+  private int collect(int xmin, int ymin, int xmax, int ymax) {
+
+    int count = 0;
+    if (xmin > xmax || ymin > ymax) return 0;
+    if (xmax < 0 || ymax < 0 || xmin > SIZE || ymin > SIZE) return 0;
+
+    int fromX = cellRow(xmin);
+    int toX = cellRow(Math.min(xmax, SIZE));
+    int fromY = cellRow(ymin);
+    int toY = cellRow(Math.min(ymax, SIZE));
+
+    for (int cy = fromY; cy <= toY; cy++) {
+      for (int cx = fromX; cx <= toX; cx++) {
+        int c = cy * side + cx;
+
+        // Cells inside the window need no test per point
+        boolean inside = cx > fromX && cx < toX && cy > fromY && cy < toY;
+        for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+          int i = cellPoints[k];
+          if (inside || (points.x(i) >= xmin && points.x(i) <= xmax
+                         && points.y(i) >= ymin && points.y(i) <= ymax)) {
+            if (count == candidates.length) {
+              candidates = Arrays.copyOf(candidates, 2 * count);
+            }
+            candidates[count++] = i;
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  // The maximal segments through 4 or more of the points in the
+  // window, each one as point indices in natural order, the same
+  // segments Fast finds on just the points in the window
+  public List<int[]> segments(int xmin, int ymin, int xmax, int ymax) {
+
+    int count = collect(xmin, ymin, xmax, ymax);
+    int[] window = Arrays.copyOf(candidates, count);
+    int[] xs = new int[count];
+    int[] ys = new int[count];
+    for (int k = 0; k < count; k++) {
+      xs[k] = points.x(window[k]);
+      ys[k] = points.y(window[k]);
+    }
+
+    List<int[]> segments = Fast.segmentsHashed(new PointSet(xs, ys));
+    for (int[] segment : segments) {
+      for (int k = 0; k < segment.length; k++) {
+        segment[k] = window[segment[k]];
+      }
+    }
+    return segments;
+  }
+
+  // The lines through point p and 3 or more other points of the
+  // whole set, each one as the point indices on it in natural order,
+  // p included. Copies of p are on no line with it. A line through p
+  // can reach any point, so this looks at all of them.
+  public List<int[]> linesThrough(int p) {
+    return linesNear(p, SIZE);
+  }
+
+  // The lines through point p and 3 or more other points within
+  // distance radius of p along each axis, like linesThrough but only
+  // the points in that window are looked at and count. A line whose
+  // other points are farther away than radius is not found.
+  public List<int[]> linesNear(int p, int radius) {
+
+    int px = points.x(p);
+    int py = points.y(p);
+    int count = collect(px - radius, py - radius, px + radius, py + radius);
+
+    if (table == null || table.capacity() < count) {
+      table = new SlopeTable(Math.max(count, 2 * candidates.length));
+    }
+    table.clear();
+    for (int k = 0; k < count; k++) {
+      long key = points.slopeKey(p, candidates[k]);
+      if (key != Long.MIN_VALUE) table.add(key, k);
+    }
+
+    List<int[]> lines = new ArrayList<int[]>();
+    for (int g = 0; g < table.groups(); g++) {
+      if (table.count(g) < 3) continue;
+
+      int[] line = new int[table.count(g) + 1];
+      line[0] = p;
+      int n = 1;
+      for (int k = table.first(g); k != -1; k = table.next(k)) {
+        line[n++] = candidates[k];
+      }
+      sort(line);
+      lines.add(line);
+    }
+    return lines;
+  }
+
+  // insertion sort of point indices in natural order,
+  // lines are short
+  private void sort(int[] line) {
+
+    for (int i = 1; i < line.length; i++) {
+      int item = line[i];
+      int j = i;
+      while (j > 0 && points.compare(item, line[j - 1]) < 0) {
+        line[j] = line[j - 1];
+        j--;
+      }
+      line[j] = item;
+    }
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // unit testing, compares against scanning every point
+  public static void main(String[] args) {
+
+    SplittableRandom random = new SplittableRandom(17);
+
+    print("Check range queries against a full scan");
+    for (int round = 0; round < 20; round++) {
+      int size = random.nextInt(1, 20000);
+      int[] xs = new int[size];
+      int[] ys = new int[size];
+      for (int i = 0; i < size; i++) {
+        xs[i] = random.nextInt(SIZE + 1);
+        ys[i] = random.nextInt(SIZE + 1);
+      }
+      PointGrid grid = new PointGrid(new PointSet(xs, ys));
+
+      for (int query = 0; query < 50; query++) {
+        int xmin = random.nextInt(-100, SIZE + 100);
+        int ymin = random.nextInt(-100, SIZE + 100);
+        int xmax = xmin + random.nextInt(5000);
+        int ymax = ymin + random.nextInt(5000);
+
+        int[] found = grid.range(xmin, ymin, xmax, ymax);
+        Arrays.sort(found);
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+          if (xs[i] >= xmin && xs[i] <= xmax && ys[i] >= ymin && ys[i] <= ymax) {
+            assert (n < found.length && found[n] == i);
+            n++;
+          }
+        }
+        assert (n == found.length);
+      }
+    }
+    print("Passed");
+
+    print("Check window segments and lines through a point");
+    int size = 5000;
+    int[] xs = new int[size];
+    int[] ys = new int[size];
+    for (int i = 0; i < size; i++) {
+      // Lots of collinear points on a coarse lattice
+      xs[i] = 4096 * random.nextInt(9);
+      ys[i] = 4096 * random.nextInt(9);
+      if (i % 2 == 0) xs[i] = random.nextInt(SIZE + 1);
+    }
+    PointSet set = new PointSet(xs, ys);
+    PointGrid grid = new PointGrid(set);
+
+    List<int[]> window = grid.segments(4000, 4000, 20000, 20000);
+    int[] inside = grid.range(4000, 4000, 20000, 20000);
+    int[] wxs = new int[inside.length];
+    int[] wys = new int[inside.length];
+    for (int k = 0; k < inside.length; k++) {
+      wxs[k] = xs[inside[k]];
+      wys[k] = ys[inside[k]];
+    }
+    List<int[]> expected = Fast.segments(new PointSet(wxs, wys));
+    assert (window.size() == expected.size());
+    for (int s = 0; s < window.size(); s++) {
+      for (int k = 0; k < window.get(s).length; k++) {
+        assert (window.get(s)[k] == inside[expected.get(s)[k]]);
+      }
+    }
+
+    for (int p = 0; p < size; p += 97) {
+      List<int[]> lines = grid.linesNear(p, 6000);
+      for (int[] line : lines) {
+        int seen = 0;
+        long key = 0;
+        for (int k = 0; k < line.length; k++) {
+          assert (Math.abs(xs[line[k]] - xs[p]) <= 6000);
+          assert (Math.abs(ys[line[k]] - ys[p]) <= 6000);
+          if (k > 0) assert (set.compare(line[k - 1], line[k]) <= 0);
+          if (line[k] == p) {
+            seen++;
+          } else {
+            if (key == 0) key = set.slopeKey(p, line[k]);
+            assert (set.slopeKey(p, line[k]) == key);
+          }
+        }
+        assert (seen == 1 && line.length >= 4);
+      }
+    }
+    print("Passed");
+
+    print("Check lines through a point against a scan of the whole set");
+    for (int p = 0; p < size; p += 389) {
+      List<int[]> lines = grid.linesThrough(p);
+      int onLines = 0;
+      for (int[] line : lines) {
+        onLines += line.length - 1;
+      }
+
+      // Count the other points on slopes that 3 or more of them share
+      Map<Long, Integer> slopes = new HashMap<Long, Integer>();
+      for (int i = 0; i < size; i++) {
+        if (i == p || set.compare(i, p) == 0) continue;
+        Long key = set.slopeKey(p, i);
+        slopes.put(key, slopes.getOrDefault(key, 0) + 1);
+      }
+      int expectedLines = 0;
+      int expectedOnLines = 0;
+      for (int count : slopes.values()) {
+        if (count < 3) continue;
+        expectedLines++;
+        expectedOnLines += count;
+      }
+      assert (lines.size() == expectedLines);
+      assert (onLines == expectedOnLines);
+    }
+    print("Passed");
+
+    print("Operations Successful");
+  }
+}
@@ -0,0 +1,79 @@
+import java.util.SplittableRandom;
+
+public class PointGridBenchmark {
+
+  private static final long SEED = 20150101L;
+  private static final int QUERIES = 1000;
+
+  // usage: java PointGridBenchmark [N [window]]
+  // Builds a PointGrid over N random points and times range and
+  // linesNear queries on windows of the given width against a
+  // scan over every point, and linesThrough over the whole set
+  public static void main(String[] args) {
+
+    int N = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    int width = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+    SplittableRandom random = new SplittableRandom(SEED);
+    int[] xs = new int[N];
+    int[] ys = new int[N];
+    for (int i = 0; i < N; i++) {
+      xs[i] = random.nextInt(PointGrid.SIZE + 1);
+      ys[i] = random.nextInt(PointGrid.SIZE + 1);
+    }
+    PointSet points = new PointSet(xs, ys);
+
+    long start = System.nanoTime();
+    PointGrid grid = new PointGrid(points);
+    System.out.printf("N = %d, build %.1f ms%n", N,
+                      (System.nanoTime() - start) / 1e6);
+
+    int[] corners = new int[QUERIES];
+    for (int q = 0; q < QUERIES; q++) {
+      corners[q] = random.nextInt(N);
+    }
+
+    // Full scan, the only option without an index
+    long found = 0;
+    start = System.nanoTime();
+    for (int q = 0; q < QUERIES; q++) {
+      int x = xs[corners[q]];
+      int y = ys[corners[q]];
+      for (int i = 0; i < N; i++) {
+        if (xs[i] >= x && xs[i] <= x + width
+            && ys[i] >= y && ys[i] <= y + width) {
+          found++;
+        }
+      }
+    }
+    report("scan", System.nanoTime() - start, found);
+
+    found = 0;
+    start = System.nanoTime();
+    for (int q = 0; q < QUERIES; q++) {
+      int x = xs[corners[q]];
+      int y = ys[corners[q]];
+      found += grid.range(x, y, x + width, y + width).length;
+    }
+    report("range", System.nanoTime() - start, found);
+
+    found = 0;
+    start = System.nanoTime();
+    for (int q = 0; q < QUERIES; q++) {
+      found += grid.linesNear(corners[q], width / 2).size();
+    }
+    report("linesNear", System.nanoTime() - start, found);
+
+    found = 0;
+    start = System.nanoTime();
+    for (int q = 0; q < QUERIES; q++) {
+      found += grid.linesThrough(corners[q]).size();
+    }
+    report("linesThrough", System.nanoTime() - start, found);
+  }
+
+  private static void report(String name, long time, long found) {
+    System.out.printf("%-12s %9.3f ms per query, %d found%n", name,
+                      time / 1e6 / QUERIES, found);
+  }
+}
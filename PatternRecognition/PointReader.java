@@ -0,0 +1,291 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+public class PointReader {
+
+  // Binary point files start with these four bytes, then the count
+  // as an int, then all x coordinates and then all y coordinates,
+  // every int little endian
+  private static final int MAGIC = 0x31535450;       // "PTS1"
+  private static final int HEADER_BYTES = 8;
+
+  // The text is read through a buffer of this many bytes and a
+  // binary file is mapped in chunks of at most 1 GB
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final int CHUNK_INTS = 1 << 28;
+
+  private FileChannel channel;
+  private ByteBuffer buffer;
+
+  private PointReader(FileChannel channel) {
+    this.channel = channel;
+    buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    buffer.flip();
+  }
+
+  // Read a text or a binary point file, whichever file is
+  public static PointSet read(Path file) throws IOException {
+    return isBinary(file) ? readBinary(file) : readText(file);
+  }
+
+  // Read the text format of the input files, the number of points
+  // followed by the x and y coordinate of every point, separated by
+  // any whitespace. The digits are parsed straight from the bytes.
+  public static PointSet readText(Path file) throws IOException {
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      PointReader reader = new PointReader(channel);
+      int size = reader.nextInt();
+      if (size < 0) throw new InputMismatchException("negative count");
+
+      // Every point takes at least two digits and two separators, a
+      // count the file cannot hold must fail before it is allocated
+      if (size > channel.size() / 4) {
+        throw new InputMismatchException("file too short for "
+                                         + size + " points");
+      }
+
+      int[] xs = new int[size];
+      int[] ys = new int[size];
+      for (int i = 0; i < size; i++) {
+        xs[i] = reader.nextInt();
+        ys[i] = reader.nextInt();
+      }
+      return new PointSet(xs, ys);
+    }
+  }
+
+  // Read a binary point file written by writeBinary. The file is
+  // memory mapped and the coordinates copied out in bulk.
+  public static PointSet readBinary(Path file) throws IOException {
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+        .order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining() && channel.read(header) >= 0) { }
+      if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+        throw new InputMismatchException("not a binary point file");
+      }
+
+      int size = header.getInt(4);
+      if (size < 0 || channel.size() != HEADER_BYTES + 8L * size) {
+        throw new InputMismatchException("wrong length for "
+                                         + size + " points");
+      }
+
+      int[] xs = new int[size];
+      int[] ys = new int[size];
+      copy(channel, HEADER_BYTES, xs);
+      copy(channel, HEADER_BYTES + 4L * size, ys);
+      return new PointSet(xs, ys);
+    }
+  }
+
+  // Write points to file in the binary format
+  public static void writeBinary(PointSet points, Path file)
+    throws IOException {
+
+    int size = points.size();
+    try (FileChannel channel =
+           FileChannel.open(file, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE)
+        .order(ByteOrder.LITTLE_ENDIAN);
+      out.putInt(MAGIC).putInt(size);
+
+      for (int pass = 0; pass < 2; pass++) {
+        for (int i = 0; i < size; i++) {
+          if (!out.hasRemaining()) drain(channel, out);
+          out.putInt(pass == 0 ? points.x(i) : points.y(i));
+        }
+      }
+      drain(channel, out);
+    }
+  }
+
+  // Write points to file in the text format
+  public static void writeText(PointSet points, Path file)
+    throws IOException {
+
+    int size = points.size();
+    try (BufferedWriter out =
+           Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+      out.write(size + "\n");
+      for (int i = 0; i < size; i++) {
+        out.write(points.x(i) + " " + points.y(i) + "\n");
+      }
+    }
+  }
+
+  // does file start like a binary point file?
+  public static boolean isBinary(Path file) throws IOException {
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+      while (magic.hasRemaining() && channel.read(magic) >= 0) { }
+      return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+    }
+  }
+
+  private static void drain(FileChannel channel, ByteBuffer out)
+    throws IOException {
+
+    out.flip();
+    while (out.hasRemaining()) {
+      channel.write(out);
+    }
+    out.clear();
+  }
+
+  // Fill values with the ints stored at position in channel
+  private static void copy(FileChannel channel, long position, int[] values)
+    throws IOException {
+
+    for (int from = 0; from < values.length; from += CHUNK_INTS) {
+      int length = Math.min(CHUNK_INTS, values.length - from);
+      MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY,
+                                           position + 4L * from, 4L * length);
+      IntBuffer ints = chunk.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+      ints.get(values, from, length);
+    }
+  }
+
+  // next byte of the file, or -1 at the end
+  private int read() throws IOException {
+
+    if (!buffer.hasRemaining()) {
+      buffer.clear();
+      int count;
+      do {
+        count = channel.read(buffer);
+      } while (count == 0);
+      buffer.flip();
+      if (count < 0) return -1;
+    }
+    return buffer.get() & 0xFF;
+  }
+
+  // next whitespace separated int, in decimal with an optional sign
+  private int nextInt() throws IOException {
+
+    int c = read();
+    while (isSpace(c)) {
+      c = read();
+    }
+    if (c == -1) throw new NoSuchElementException();
+
+    boolean negative = c == '-';
+    if (c == '-' || c == '+') c = read();
+    if (c < '0' || c > '9') throw new InputMismatchException();
+
+    // Accumulate negated so that Integer.MIN_VALUE fits
+    long value = 0;
+    while (c >= '0' && c <= '9') {
+      value = value * 10 - (c - '0');
+      if (value < Integer.MIN_VALUE) {
+        throw new InputMismatchException("int overflow");
+      }
+      c = read();
+    }
+    if (c != -1 && !isSpace(c)) throw new InputMismatchException();
+
+    if (negative) return (int) value;
+    if (value == Integer.MIN_VALUE) {
+      throw new InputMismatchException("int overflow");
+    }
+    return (int) -value;
+  }
+
+  private static boolean isSpace(int c) {
+    return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // unit testing
+  public static void main(String[] args) throws IOException {
+
+    Path text = Files.createTempFile("points", ".txt");
+    Path binary = Files.createTempFile("points", ".bin");
+
+    try {
+      print("Check the text parser");
+      Files.write(text, ("4\n  0 32767\r\n-5\t+7\n2147483647 -2147483648\n"
+                         + "10000 0").getBytes(StandardCharsets.US_ASCII));
+      PointSet read = readText(text);
+      int[] xs = { 0, -5, 2147483647, 10000 };
+      int[] ys = { 32767, 7, -2147483648, 0 };
+      assert (read.size() == 4);
+      for (int i = 0; i < 4; i++) {
+        assert (read.x(i) == xs[i] && read.y(i) == ys[i]);
+      }
+      assert (!isBinary(text));
+      print("Passed");
+
+      print("Check malformed text");
+      String[] malformed = { "2\n1 2\n3", "1\n1 2x", "1\n2147483648 0", "-1\n",
+                             "2000000000\n1 2\n" };
+      for (String input : malformed) {
+        Files.write(text, input.getBytes(StandardCharsets.US_ASCII));
+        try {
+          readText(text);
+          assert (false);
+        } catch (NoSuchElementException e) {
+          // InputMismatchException is a NoSuchElementException too
+        }
+      }
+      print("Passed");
+
+      print("Check the binary format round trip");
+      int size = 200000;
+      int[] randomXs = new int[size];
+      int[] randomYs = new int[size];
+      for (int i = 0; i < size; i++) {
+        randomXs[i] = StdRandom.uniform(32768);
+        randomYs[i] = StdRandom.uniform(32768);
+      }
+      PointSet points = new PointSet(randomXs, randomYs);
+      writeBinary(points, binary);
+      writeText(points, text);
+      assert (isBinary(binary));
+      PointSet fromBinary = read(binary);
+      PointSet fromText = read(text);
+      for (int i = 0; i < size; i++) {
+        assert (fromBinary.x(i) == randomXs[i] && fromBinary.y(i) == randomYs[i]);
+        assert (fromText.x(i) == randomXs[i] && fromText.y(i) == randomYs[i]);
+      }
+      print("Passed");
+
+      print("Check a truncated binary file");
+      try (FileChannel channel = FileChannel.open(binary, StandardOpenOption.WRITE)) {
+        channel.truncate(channel.size() - 4);
+      }
+      try {
+        readBinary(binary);
+        assert (false);
+      } catch (InputMismatchException e) {
+        // expected
+      }
+      print("Passed");
+    } finally {
+      Files.deleteIfExists(text);
+      Files.deleteIfExists(binary);
+    }
+
+    print("Operations Successful");
+  }
+}
@@ -0,0 +1,69 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+public class PointReaderBenchmark {
+
+  private static final long SEED = 20150101L;
+
+  // usage: java PointReaderBenchmark [N]
+  // Writes N random points as text and as binary and times loading
+  // them with In, PointReader.readText and PointReader.readBinary
+  public static void main(String[] args) throws IOException {
+
+    int N = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+
+    SplittableRandom random = new SplittableRandom(SEED);
+    int[] xs = new int[N];
+    int[] ys = new int[N];
+    for (int i = 0; i < N; i++) {
+      xs[i] = random.nextInt(32768);
+      ys[i] = random.nextInt(32768);
+    }
+    PointSet points = new PointSet(xs, ys);
+
+    Path text = Files.createTempFile("points", ".txt");
+    Path binary = Files.createTempFile("points", ".bin");
+    try {
+      PointReader.writeText(points, text);
+      PointReader.writeBinary(points, binary);
+      System.out.printf("N = %d, text %.1f MB, binary %.1f MB%n", N,
+                        Files.size(text) / 1e6, Files.size(binary) / 1e6);
+
+      long start = System.nanoTime();
+      In in = new In(text.toString());
+      int size = in.readInt();
+      int[] inXs = new int[size];
+      int[] inYs = new int[size];
+      for (int i = 0; i < size; i++) {
+        inXs[i] = in.readInt();
+        inYs[i] = in.readInt();
+      }
+      report("In.readInt", System.nanoTime() - start, Files.size(text));
+
+      start = System.nanoTime();
+      PointSet fromText = PointReader.readText(text);
+      report("readText", System.nanoTime() - start, Files.size(text));
+
+      start = System.nanoTime();
+      PointSet fromBinary = PointReader.readBinary(binary);
+      report("readBinary", System.nanoTime() - start, Files.size(binary));
+
+      for (int i = 0; i < N; i++) {
+        if (inXs[i] != xs[i] || fromText.x(i) != xs[i]
+            || fromBinary.y(i) != ys[i]) {
+          throw new AssertionError();
+        }
+      }
+    } finally {
+      Files.deleteIfExists(text);
+      Files.deleteIfExists(binary);
+    }
+  }
+
+  private static void report(String name, long time, long bytes) {
+    System.out.printf("%-12s %9.1f ms  %7.1f MB/s%n", name, time / 1e6,
+                      bytes * 1e3 / time);
+  }
+}
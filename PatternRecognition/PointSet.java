@@ -0,0 +1,165 @@
+import java.util.Random;
+
+public class PointSet {
+
+  private final int[] xs;                           // x coordinates
+  private final int[] ys;                           // y coordinates
+
+  // The points (xs[i], ys[i]) kept in two parallel arrays, with no
+  // object per point. Points are referred to by their index and the
+  // arrays are used as they are, not copied.
+  public PointSet(int[] xs, int[] ys) {
+
+    if (xs.length != ys.length) throw new IllegalArgumentException();
+
+    this.xs = xs;
+    this.ys = ys;
+  }
+
+  // the coordinates of points, in the same order
+  public PointSet(Point[] points) {
+
+    xs = new int[points.length];
+    ys = new int[points.length];
+    for (int i = 0; i < points.length; i++) {
+      xs[i] = points[i].x();
+      ys[i] = points[i].y();
+    }
+  }
+
+  public int size() {
+    return xs.length;
+  }
+
+  public int x(int i) {
+    return xs[i];
+  }
+
+  public int y(int i) {
+    return ys[i];
+  }
+
+  public Point point(int i) {
+    return new Point(xs[i], ys[i]);
+  }
+
+  // plot point i to standard drawing
+  public void draw(int i) {
+    StdDraw.point(xs[i], ys[i]);
+  }
+
+  // draw line between point i and point j to standard drawing
+  public void drawTo(int i, int j) {
+    StdDraw.line(xs[i], ys[i], xs[j], ys[j]);
+  }
+
+  // compare points i and j like Point.compareTo,
+  // by y-coordinate and then by x-coordinate
+  public int compare(int i, int j) {
+
+    if (ys[i] != ys[j]) return ys[i] < ys[j] ? -1 : 1;
+    if (xs[i] != xs[j]) return xs[i] < xs[j] ? -1 : 1;
+    return 0;
+  }
+
+  // compare points a and b by the slope they make with origin,
+  // the same order as the SLOPE_ORDER of Point
+  public int compareSlopes(int origin, int a, int b) {
+    return Point.compareSlopes(xs[a] - xs[origin], ys[a] - ys[origin],
+                               xs[b] - xs[origin], ys[b] - ys[origin]);
+  }
+
+  // the exact slope between point origin and point i, see Point.slopeKey
+  public long slopeKey(int origin, int i) {
+    return Point.slopeKey(xs[i] - xs[origin], ys[i] - ys[origin]);
+  }
+
+  // the indices of all points in natural order, equal points
+  // in the order of their index
+  public int[] sortedOrder() {
+
+    int[] order = new int[size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    sort(order, new int[order.length], 0, order.length);
+    return order;
+  }
+
+  // Merge sort by natural order, small runs are sorted by insertion
+  private void sort(int[] a, int[] aux, int from, int to) {
+
+    if (to - from <= 16) {
+      for (int i = from + 1; i < to; i++) {
+        int item = a[i];
+        int j = i;
+        while (j > from && compare(item, a[j - 1]) < 0) {
+          a[j] = a[j - 1];
+          j--;
+        }
+        a[j] = item;
+      }
+      return;
+    }
+
+    int mid = (from + to) >>> 1;
+    sort(a, aux, from, mid);
+    sort(a, aux, mid, to);
+
+    // Already in order
+    if (compare(a[mid], a[mid - 1]) >= 0) return;
+
+    int left = 0;
+    int leftEnd = mid - from;
+    System.arraycopy(a, from, aux, 0, leftEnd);
+    int right = mid;
+    int k = from;
+    while (left < leftEnd && right < to) {
+      if (compare(a[right], aux[left]) < 0) a[k++] = a[right++];
+      else a[k++] = aux[left++];
+    }
+    System.arraycopy(aux, left, a, k, leftEnd - left);
+  }
+
+  // return string representation of point i
+  public String toString(int i) {
+    return "(" + xs[i] + ", " + ys[i] + ")";
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // unit testing, compares against Point
+  public static void main(String[] args) {
+
+    Random random = new Random(15);
+    Point[] points = new Point[500];
+    for (int i = 0; i < points.length; i++) {
+      points[i] = new Point(random.nextInt(40), random.nextInt(40));
+    }
+    PointSet set = new PointSet(points);
+
+    print("Check the comparisons against Point");
+    for (int k = 0; k < 100000; k++) {
+      int o = random.nextInt(points.length);
+      int a = random.nextInt(points.length);
+      int b = random.nextInt(points.length);
+      assert (set.compare(a, b) == points[a].compareTo(points[b]));
+      assert (set.compareSlopes(o, a, b)
+              == points[o].SLOPE_ORDER.compare(points[a], points[b]));
+      assert (set.slopeKey(o, a) == points[o].slopeKey(points[a]));
+    }
+    print("Passed");
+
+    print("Check the sort is stable and ordered");
+    int[] order = set.sortedOrder();
+    for (int k = 1; k < order.length; k++) {
+      int c = set.compare(order[k - 1], order[k]);
+      assert (c < 0 || c == 0 && order[k - 1] < order[k]);
+    }
+    print("Passed");
+
+    print("Operations Successful");
+  }
+}
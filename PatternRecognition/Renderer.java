@@ -0,0 +1,436 @@
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.imageio.ImageIO;
+
+public class Renderer implements Closeable {
+
+  public enum Target { SCREEN, PNG, SVG }
+
+  // Primitives are handed to the render thread in batches of this
+  // many ints, a few batches are in flight at a time
+  private static final int BATCH_INTS = 1 << 14;
+  private static final int BATCHES = 4;
+
+  private static final int POINTS = 0;
+  private static final int SEGMENTS = 1;
+  private static final int END = 2;
+
+  // Segment keys pack each pixel coordinate into 16 bits
+  private static final int MAX_SIDE = 1 << 16;
+
+  private final Target target;
+  private final Path file;
+  private final int width;
+  private final int height;
+  private final double scale;
+
+  private final BlockingQueue<Batch> full;
+  private final BlockingQueue<Batch> free;
+  private final Thread thread;
+  private Batch points;
+  private Batch segments;
+  private volatile Throwable failure;
+
+  // render thread state
+  private long[] pixels;                     // pixels with a point on them
+  private long[] seen = new long[1024];      // segments drawn, 0 is empty
+  private int seenCount;
+  private long drawn;
+  private long culled;
+  private BufferedImage image;
+  private Graphics2D graphics;
+  private Writer svg;
+
+  // Draws points and segments from the 32768 by 32768 square of the
+  // input files on a separate thread. The caller only copies
+  // coordinates into a batch, full batches go to the render thread,
+  // which drops segments shorter than a pixel and segments and points
+  // that land on exactly the same pixels as one drawn before.
+  public Renderer(Target target, Path file, int width, int height) {
+
+    if (width <= 0 || height <= 0) throw new IllegalArgumentException();
+    if (width > MAX_SIDE || height > MAX_SIDE) {
+      throw new IllegalArgumentException("at most " + MAX_SIDE
+                                         + " pixels on a side");
+    }
+    if (target != Target.SCREEN && file == null) {
+      throw new IllegalArgumentException("no file to write to");
+    }
+
+    this.target = target;
+    this.file = file;
+    this.width = width;
+    this.height = height;
+    scale = Math.min(width, height) / (double) PointGrid.SIZE;
+
+    full = new ArrayBlockingQueue<Batch>(BATCHES);
+    free = new ArrayBlockingQueue<Batch>(BATCHES + 2);
+    for (int b = 0; b < BATCHES; b++) {
+      free.add(new Batch());
+    }
+    points = new Batch();
+    segments = new Batch();
+
+    thread = new Thread(new Runnable() {
+      public void run() {
+        render();
+      }
+    }, "renderer");
+    thread.start();
+  }
+
+  // draw to the StdDraw window, assumed to be width by height pixels
+  public Renderer(int width, int height) {
+    this(Target.SCREEN, null, width, height);
+  }
+
+  // plot the point (x, y)
+  public void point(int x, int y) {
+    if (points.count + 2 > BATCH_INTS) points = send(points, POINTS);
+    points.data[points.count++] = x;
+    points.data[points.count++] = y;
+  }
+
+  // plot all points of a point set
+  public void points(PointSet set) {
+    for (int i = 0; i < set.size(); i++) {
+      point(set.x(i), set.y(i));
+    }
+  }
+
+  // draw line between (x0, y0) and (x1, y1)
+  public void segment(int x0, int y0, int x1, int y1) {
+    if (segments.count + 4 > BATCH_INTS) {
+      segments = send(segments, SEGMENTS);
+    }
+    int[] data = segments.data;
+    data[segments.count++] = x0;
+    data[segments.count++] = y0;
+    data[segments.count++] = x1;
+    data[segments.count++] = y1;
+  }
+
+  // Draw what is left, wait for the render thread and write the file
+  public void close() throws IOException {
+
+    if (points == null) return;
+
+    handOff(points, POINTS);
+    handOff(segments, SEGMENTS);
+    handOff(new Batch(), END);
+    points = null;
+    segments = null;
+
+    boolean interrupted = false;
+    while (true) {
+      try {
+        thread.join();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) Thread.currentThread().interrupt();
+
+    if (failure instanceof IOException) throw (IOException) failure;
+    if (failure != null) throw new IOException("rendering failed", failure);
+  }
+
+  // primitives drawn and dropped, only final after close
+  public long drawn() {
+    return drawn;
+  }
+
+  public long culled() {
+    return culled;
+  }
+
+  // Hand batch to the render thread and return an empty one
+  private Batch send(Batch batch, int kind) {
+
+    if (points == null) throw new IllegalStateException("closed");
+    if (failure != null) {
+      throw new IllegalStateException("rendering failed", failure);
+    }
+
+    handOff(batch, kind);
+    try {
+      Batch next = free.take();
+      next.count = 0;
+      return next;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void handOff(Batch batch, int kind) {
+
+    batch.kind = kind;
+    try {
+      full.put(batch);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void render() {
+
+    boolean ended = false;
+    try {
+      begin();
+      while (true) {
+        Batch batch = full.take();
+        if (batch.kind == END) {
+          ended = true;
+          break;
+        }
+        if (batch.kind == POINTS) drawPoints(batch);
+        else drawSegments(batch);
+        free.put(batch);
+      }
+      end();
+    } catch (Throwable e) {
+      failure = e;
+
+      // Keep taking batches so the caller never blocks
+      try {
+        Batch batch;
+        while (!ended && (batch = full.take()).kind != END) {
+          free.put(batch);
+        }
+      } catch (InterruptedException ignored) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void begin() throws IOException {
+
+    pixels = new long[(int) (((long) width * height + 63) >>> 6)];
+
+    if (target == Target.SCREEN) {
+      StdDraw.setXscale(0, PointGrid.SIZE);
+      StdDraw.setYscale(0, PointGrid.SIZE);
+      StdDraw.show(0);
+    } else if (target == Target.PNG) {
+      image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+      graphics = image.createGraphics();
+      graphics.setColor(Color.WHITE);
+      graphics.fillRect(0, 0, width, height);
+      graphics.setColor(Color.BLACK);
+      graphics.setStroke(new BasicStroke(1));
+      graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                                RenderingHints.VALUE_ANTIALIAS_ON);
+    } else {
+      svg = Files.newBufferedWriter(file, StandardCharsets.US_ASCII);
+      svg.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width
+                + "\" height=\"" + height + "\">\n");
+      svg.write("<rect width=\"100%\" height=\"100%\" fill=\"white\"/>\n");
+      svg.write("<g stroke=\"black\" fill=\"black\">\n");
+    }
+  }
+
+  private void end() throws IOException {
+
+    if (target == Target.SCREEN) {
+      // display to screen all at once
+      StdDraw.show(0);
+    } else if (target == Target.PNG) {
+      graphics.dispose();
+      ImageIO.write(image, "png", file.toFile());
+    } else {
+      svg.write("</g>\n</svg>\n");
+      svg.close();
+    }
+  }
+
+  private int pixelX(int x) {
+    return (int) Math.min(width - 1, Math.max(0, Math.round(x * scale)));
+  }
+
+  // pixel rows go down, y goes up
+  private int pixelY(int y) {
+    return (int) Math.min(height - 1,
+                          Math.max(0, height - 1 - Math.round(y * scale)));
+  }
+
+  private void drawPoints(Batch batch) throws IOException {
+
+    if (target == Target.SCREEN) StdDraw.setPenRadius(0.01);
+
+    int[] data = batch.data;
+    for (int k = 0; k < batch.count; k += 2) {
+      int px = pixelX(data[k]);
+      int py = pixelY(data[k + 1]);
+
+      // Points on a pixel that already has one add nothing
+      long pixel = (long) py * width + px;
+      long bit = 1L << pixel;
+      if ((pixels[(int) (pixel >>> 6)] & bit) != 0) {
+        culled++;
+        continue;
+      }
+      pixels[(int) (pixel >>> 6)] |= bit;
+      drawn++;
+
+      if (target == Target.SCREEN) {
+        StdDraw.point(data[k], data[k + 1]);
+      } else if (target == Target.PNG) {
+        graphics.fillRect(px - 1, py - 1, 3, 3);
+      } else {
+        svg.write("<rect x=\"" + (px - 1) + "\" y=\"" + (py - 1)
+                  + "\" width=\"3\" height=\"3\"/>\n");
+      }
+    }
+
+    // reset the pen radius
+    if (target == Target.SCREEN) StdDraw.setPenRadius();
+  }
+
+  private void drawSegments(Batch batch) throws IOException {
+
+    int[] data = batch.data;
+    for (int k = 0; k < batch.count; k += 4) {
+      int x0 = pixelX(data[k]);
+      int y0 = pixelY(data[k + 1]);
+      int x1 = pixelX(data[k + 2]);
+      int y1 = pixelY(data[k + 3]);
+
+      // Shorter than a pixel, or the same pixels as one drawn before
+      if (x0 == x1 && y0 == y1 || !firstTime(x0, y0, x1, y1)) {
+        culled++;
+        continue;
+      }
+      drawn++;
+
+      if (target == Target.SCREEN) {
+        StdDraw.line(data[k], data[k + 1], data[k + 2], data[k + 3]);
+      } else if (target == Target.PNG) {
+        graphics.drawLine(x0, y0, x1, y1);
+      } else {
+        svg.write("<line x1=\"" + x0 + "\" y1=\"" + y0 + "\" x2=\"" + x1
+                  + "\" y2=\"" + y1 + "\"/>\n");
+      }
+    }
+  }
+
+  // Record the segment between the two pixels, in either direction,
+  // and return false if it was recorded before. Open addressing on
+  // the pixel coordinates packed into a long, never 0. Pixels are
+  // clamped to the image and a side has at most MAX_SIDE pixels, so
+  // every coordinate fits its 16 bits.
+  private boolean firstTime(int x0, int y0, int x1, int y1) {
+
+    if (x0 > x1 || x0 == x1 && y0 > y1) {
+      int t = x0; x0 = x1; x1 = t;
+      t = y0; y0 = y1; y1 = t;
+    }
+    long key = ((long) x0 << 48 | (long) y0 << 32 | (long) x1 << 16 | y1) + 1;
+
+    if (2 * (seenCount + 1) > seen.length) {
+      long[] old = seen;
+      seen = new long[2 * old.length];
+      seenCount = 0;
+      for (long k : old) {
+        if (k != 0) insert(k);
+      }
+    }
+    return insert(key);
+  }
+
+  private boolean insert(long key) {
+
+    int mask = seen.length - 1;
+    long h = key * 0x9E3779B97F4A7C15L;
+    int slot = (int) (h ^ (h >>> 32)) & mask;
+    while (seen[slot] != 0) {
+      if (seen[slot] == key) return false;
+      slot = (slot + 1) & mask;
+    }
+    seen[slot] = key;
+    seenCount++;
+    return true;
+  }
+
+  private static final class Batch {
+    int kind;
+    int count;
+    final int[] data = new int[BATCH_INTS];
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // unit testing, renders to temporary files
+  public static void main(String[] args) throws IOException {
+
+    Path png = Files.createTempFile("render", ".png");
+    Path svgFile = Files.createTempFile("render", ".svg");
+
+    try {
+      print("Check culling");
+      Renderer renderer = new Renderer(Target.SVG, svgFile, 512, 512);
+      renderer.point(0, 0);
+      renderer.point(10, 10);                  // same pixel
+      renderer.point(32768, 32768);
+      renderer.segment(0, 0, 32768, 32768);
+      renderer.segment(32768, 32768, 0, 0);    // the same backwards
+      renderer.segment(100, 100, 110, 110);    // less than a pixel
+      renderer.close();
+      assert (renderer.drawn() == 3);
+      assert (renderer.culled() == 3);
+      String text = new String(Files.readAllBytes(svgFile),
+                               StandardCharsets.US_ASCII);
+      assert (text.startsWith("<svg") && text.trim().endsWith("</svg>"));
+      print("Passed");
+
+      print("Check that segment keys cannot overlap");
+      try {
+        new Renderer(Target.PNG, png, MAX_SIDE + 1, 512);
+        assert (false);
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      renderer = new Renderer(Target.SVG, svgFile, 512, 512);
+      renderer.segment(-100000, 0, 32768, 32768);   // clamped to the edge
+      renderer.segment(0, 0, 32768, 32768);
+      renderer.segment(0, 16384, 32768, 32768);
+      renderer.segment(16384, 0, 32768, 32768);
+      renderer.close();
+      assert (renderer.drawn() == 3);
+      assert (renderer.culled() == 1);
+      print("Passed");
+
+      print("Check many batches to a PNG");
+      renderer = new Renderer(Target.PNG, png, 800, 800);
+      for (int i = 0; i < 200000; i++) {
+        renderer.point(i % 32768, (i * 7) % 32768);
+        if (i % 10 == 0) renderer.segment(i % 32768, 0, 0, i % 32768);
+      }
+      renderer.close();
+      assert (renderer.drawn() + renderer.culled() == 220000);
+      BufferedImage read = ImageIO.read(png.toFile());
+      assert (read.getWidth() == 800 && read.getHeight() == 800);
+      print("Passed");
+    } finally {
+      Files.deleteIfExists(png);
+      Files.deleteIfExists(svgFile);
+    }
+
+    print("Operations Successful");
+  }
+}
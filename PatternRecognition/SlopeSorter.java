@@ -0,0 +1,150 @@
+import java.util.Random;
+
+public class SlopeSorter {
+
+  private final PointSet points;
+  private double[] slopes;
+  private double[] slopeScratch;
+  private int[] indexScratch;
+
+  // Sorts point indices of points by the slope they make with an
+  // origin. The slope of every point is computed once per sort, the
+  // comparisons only look at those doubles. Rounding keeps the order
+  // of slopes, so a smaller double is a smaller slope and only equal
+  // doubles are compared exactly with PointSet.compareSlopes. One
+  // sorter must not be used by two threads at the same time.
+  public SlopeSorter(PointSet points, int capacity) {
+
+    this.points = points;
+    slopes = new double[capacity];
+    slopeScratch = new double[capacity];
+    indexScratch = new int[capacity];
+  }
+
+  // Stable sort of indices[from] to indices[to - 1] by the slope to
+  // origin, no memory is allocated for up to capacity indices
+  public void sort(int origin, int[] indices, int from, int to) {
+
+    int n = to - from;
+    if (n > slopes.length) throw new IllegalArgumentException();
+
+    for (int k = 0; k < n; k++) {
+      slopes[k] = slope(origin, indices[from + k]);
+    }
+    sort(origin, indices, from, 0, n);
+  }
+
+  // Equal points are -infinity and vertical lines +infinity
+  // like Point.slopeTo, without negative zero
+  private double slope(int origin, int i) {
+
+    int dx = points.x(i) - points.x(origin);
+    int dy = points.y(i) - points.y(origin);
+    if (dx == 0 && dy == 0) return Double.NEGATIVE_INFINITY;
+    if (dx == 0) return Double.POSITIVE_INFINITY;
+    if (dy == 0) return 0.0;
+    return (double) dy / dx;
+  }
+
+  // Merge sort of slopes[lo] to slopes[hi - 1] together with
+  // indices[base + lo] to indices[base + hi - 1]
+  private void sort(int origin, int[] indices, int base, int lo, int hi) {
+
+    if (hi - lo <= 16) {
+      for (int k = lo + 1; k < hi; k++) {
+        double slope = slopes[k];
+        int index = indices[base + k];
+        int j = k;
+        while (j > lo && less(origin, slope, index,
+                              slopes[j - 1], indices[base + j - 1])) {
+          slopes[j] = slopes[j - 1];
+          indices[base + j] = indices[base + j - 1];
+          j--;
+        }
+        slopes[j] = slope;
+        indices[base + j] = index;
+      }
+      return;
+    }
+
+    int mid = (lo + hi) >>> 1;
+    sort(origin, indices, base, lo, mid);
+    sort(origin, indices, base, mid, hi);
+
+    // Already in order
+    if (!less(origin, slopes[mid], indices[base + mid],
+              slopes[mid - 1], indices[base + mid - 1])) {
+      return;
+    }
+
+    int left = 0;
+    int leftEnd = mid - lo;
+    System.arraycopy(slopes, lo, slopeScratch, 0, leftEnd);
+    System.arraycopy(indices, base + lo, indexScratch, 0, leftEnd);
+    int right = mid;
+    int k = lo;
+    while (left < leftEnd && right < hi) {
+      if (less(origin, slopes[right], indices[base + right],
+               slopeScratch[left], indexScratch[left])) {
+        slopes[k] = slopes[right];
+        indices[base + k++] = indices[base + right++];
+      } else {
+        slopes[k] = slopeScratch[left];
+        indices[base + k++] = indexScratch[left++];
+      }
+    }
+    System.arraycopy(slopeScratch, left, slopes, k, leftEnd - left);
+    System.arraycopy(indexScratch, left, indices, base + k, leftEnd - left);
+  }
+
+  private boolean less(int origin, double slopeA, int a,
+                       double slopeB, int b) {
+    if (slopeA != slopeB) return slopeA < slopeB;
+    return points.compareSlopes(origin, a, b) < 0;
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // unit testing, compares against PointSet.compareSlopes
+  public static void main(String[] args) {
+
+    Random random = new Random(15);
+
+    print("Check the order and stability on random points");
+    for (int round = 0; round < 50; round++) {
+      int size = 1 + random.nextInt(400);
+      int range = round % 2 == 0 ? 30 : Integer.MAX_VALUE / 2;
+      int[] xs = new int[size];
+      int[] ys = new int[size];
+      for (int i = 0; i < size; i++) {
+        xs[i] = random.nextInt(range);
+        ys[i] = random.nextInt(range);
+      }
+      PointSet set = new PointSet(xs, ys);
+      SlopeSorter sorter = new SlopeSorter(set, size);
+
+      int origin = random.nextInt(size);
+      int[] indices = set.sortedOrder();
+      sorter.sort(origin, indices, 0, size);
+      for (int k = 1; k < size; k++) {
+        int c = set.compareSlopes(origin, indices[k - 1], indices[k]);
+        assert (c < 0 || c == 0 && set.compare(indices[k - 1], indices[k]) <= 0);
+      }
+    }
+    print("Passed");
+
+    print("Check slopes that round to the same double");
+    int[] xs = { 0, 1000000000, 999999999, 1 };
+    int[] ys = { 0, 1000000001, 1000000000, 1 };
+    PointSet close = new PointSet(xs, ys);
+    assert ((double) 1000000001 / 1000000000 == (double) 1000000000 / 999999999);
+    int[] indices = { 2, 1, 3 };
+    new SlopeSorter(close, 3).sort(0, indices, 0, 3);
+    assert (indices[0] == 3 && indices[1] == 1 && indices[2] == 2);
+    print("Passed");
+
+    print("Operations Successful");
+  }
+}
@@ -0,0 +1,157 @@
+import java.util.Arrays;
+
+public class SlopeTable {
+
+  // Open addressing from slope keys to groups. A group collects the
+  // points added with the same key as a linked list through next,
+  // so adding a point never allocates.
+  private long[] slotKeys;
+  private int[] slotGroups;
+  private int mask;
+
+  private int[] groupSlot;
+  private int[] groupHead;
+  private int[] groupTail;
+  private int[] groupCount;
+  private int groups;
+
+  private int[] next;
+
+  // table for up to capacity points with ids 0 to capacity - 1
+  public SlopeTable(int capacity) {
+
+    if (capacity < 0) throw new IllegalArgumentException();
+
+    // At most half full
+    int slots = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+    slotKeys = new long[slots];
+    slotGroups = new int[slots];
+    Arrays.fill(slotGroups, -1);
+    mask = slots - 1;
+
+    groupSlot = new int[capacity];
+    groupHead = new int[capacity];
+    groupTail = new int[capacity];
+    groupCount = new int[capacity];
+    next = new int[capacity];
+  }
+
+  // forget every group, only touches the slots that are in use
+  public void clear() {
+    for (int g = 0; g < groups; g++) {
+      slotGroups[groupSlot[g]] = -1;
+    }
+    groups = 0;
+  }
+
+  // add point to the group of key, points of a group
+  // are kept in the order they were added
+  public void add(long key, int point) {
+
+    int slot = hash(key) & mask;
+    while (slotGroups[slot] != -1 && slotKeys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+
+    next[point] = -1;
+    int group = slotGroups[slot];
+
+    if (group == -1) {
+      group = groups++;
+      slotKeys[slot] = key;
+      slotGroups[slot] = group;
+      groupSlot[group] = slot;
+      groupHead[group] = point;
+      groupCount[group] = 1;
+    } else {
+      next[groupTail[group]] = point;
+      groupCount[group]++;
+    }
+    groupTail[group] = point;
+  }
+
+  // largest point id plus one
+  public int capacity() {
+    return next.length;
+  }
+
+  // number of groups, they are numbered 0 to groups() - 1
+  public int groups() {
+    return groups;
+  }
+
+  public long key(int group) {
+    return slotKeys[groupSlot[group]];
+  }
+
+  public int count(int group) {
+    return groupCount[group];
+  }
+
+  // first point added to group
+  public int first(int group) {
+    return groupHead[group];
+  }
+
+  // point added to the same group after point, or -1
+  public int next(int point) {
+    return next[point];
+  }
+
+  private static int hash(long key) {
+    key *= 0x9E3779B97F4A7C15L;
+    return (int) (key ^ (key >>> 32));
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // unit testing
+  public static void main(String[] args) {
+
+    print("Check grouping");
+    SlopeTable table = new SlopeTable(10);
+    long[] keys = { 5, -1, 5, Long.MIN_VALUE, 5, -1, 0, 7, 7, 5 };
+    for (int i = 0; i < keys.length; i++) {
+      table.add(keys[i], i);
+    }
+    assert (table.groups() == 5);
+    assert (table.key(0) == 5);
+    assert (table.count(0) == 4);
+    int[] expected = { 0, 2, 4, 9 };
+    int point = table.first(0);
+    for (int e : expected) {
+      assert (point == e);
+      point = table.next(point);
+    }
+    assert (point == -1);
+    assert (table.count(1) == 2);
+    assert (table.key(2) == Long.MIN_VALUE);
+    print("Passed");
+
+    print("Check clear");
+    table.clear();
+    assert (table.groups() == 0);
+    table.add(5, 3);
+    assert (table.groups() == 1);
+    assert (table.count(0) == 1);
+    print("Passed");
+
+    print("Check many keys");
+    SlopeTable large = new SlopeTable(100000);
+    for (int round = 0; round < 3; round++) {
+      large.clear();
+      for (int i = 0; i < 100000; i++) {
+        large.add(i % 1000 * 1000003L, i);
+      }
+      assert (large.groups() == 1000);
+      for (int g = 0; g < 1000; g++) {
+        assert (large.count(g) == 100);
+      }
+    }
+    print("Passed");
+
+    print("Operations Successful");
+  }
+}
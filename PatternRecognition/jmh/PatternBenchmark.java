@@ -0,0 +1,86 @@
+package jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// usage: mvn package
+//        java -jar target/benchmarks.jar [regex] -prof gc
+// Slopes, slope sorts and whole searches on lattice, random and
+// adversarial inputs of several sizes, see PatternWorkload. -prof gc
+// adds the bytes allocated and the collections per op, -p input=grid
+// or -p size=1000 runs just those.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(3)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@State(Scope.Thread)
+public class PatternBenchmark {
+
+  @Param({ "grid", "random", "adversarial" })
+  public String input;
+
+  @Param({ "1000", "4000" })
+  public int size;
+
+  private Patterns patterns;
+
+  // PatternWorkload is in the default package, see Patterns
+  @Setup(Level.Trial)
+  public void setup() throws ReflectiveOperationException {
+    patterns = (Patterns) Class.forName("PatternWorkload")
+      .getConstructor(String.class, int.class).newInstance(input, size);
+  }
+
+  @Benchmark
+  public double slopeTo() {
+    return patterns.slopeTo();
+  }
+
+  @Benchmark
+  public long slopeKey() {
+    return patterns.slopeKey();
+  }
+
+  @Benchmark
+  public int compareTo() {
+    return patterns.compareTo();
+  }
+
+  @Benchmark
+  public Object sortSlopeOrder() {
+    return patterns.sortSlopeOrder();
+  }
+
+  @Benchmark
+  public int[] sortSlopeSorter() {
+    return patterns.sortSlopeSorter();
+  }
+
+  // Whole searches, O(N^2) or worse, a single op takes up to
+  // seconds at a few thousand points
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public List<int[]> detectSort() {
+    return patterns.detectSort();
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public List<int[]> detectHash() {
+    return patterns.detectHash();
+  }
+}
@@ -0,0 +1,32 @@
+package jmh;
+
+import java.util.List;
+
+// The work PatternBenchmark measures. Point and PointSet are in the
+// default package, which a benchmark in a package cannot name, so
+// PatternWorkload implements this next to them and the benchmark
+// loads it by name. Every method runs the measured code once and
+// returns something that depends on all of its work.
+public interface Patterns {
+
+  // slope of every point to the first one
+  double slopeTo();
+
+  // slope key of every point to the first one
+  long slopeKey();
+
+  // compareTo of every point with the one after it
+  int compareTo();
+
+  // one Arrays.sort of the points with SLOPE_ORDER of the first one
+  Object sortSlopeOrder();
+
+  // the same sort with SlopeSorter on point indices
+  int[] sortSlopeSorter();
+
+  // all segments, with Fast.segments
+  List<int[]> detectSort();
+
+  // all segments, with Fast.segmentsHashed
+  List<int[]> detectHash();
+}
@@ -0,0 +1,57 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class BatchOpenBenchmark {
+
+  private static final long SEED = 20150101L;
+  private static final int RUNS = 3;
+
+  // usage: java BatchOpenBenchmark N batchSize
+  public static void main(String[] args) {
+
+    int N = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+    int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+
+    // Enough random sites to go past the percolation threshold
+    SplittableRandom random = new SplittableRandom(SEED);
+    int total = (int) (0.7 * N * N);
+    int[] rows = new int[total];
+    int[] cols = new int[total];
+    for (int k = 0; k < total; k++) {
+      rows[k] = random.nextInt(1, N + 1);
+      cols[k] = random.nextInt(1, N + 1);
+    }
+
+    CompactPercolation loop = new CompactPercolation(N);
+    CompactPercolation batch = new CompactPercolation(N);
+    long loopTime = Long.MAX_VALUE;
+    long batchTime = Long.MAX_VALUE;
+
+    for (int run = 0; run < RUNS; run++) {
+      loop.reset();
+      batch.reset();
+
+      long start = System.nanoTime();
+      for (int k = 0; k < total; k++) {
+        loop.open(rows[k], cols[k]);
+      }
+      loopTime = Math.min(loopTime, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      for (int from = 0; from < total; from += batchSize) {
+        int to = Math.min(total, from + batchSize);
+        batch.openAll(Arrays.copyOfRange(rows, from, to),
+                      Arrays.copyOfRange(cols, from, to));
+      }
+      batchTime = Math.min(batchTime, System.nanoTime() - start);
+
+      assert (loop.componentCount() == batch.componentCount());
+    }
+
+    System.out.printf("N = %d, %d opens, batches of %d%n", N, total, batchSize);
+    System.out.printf("open loop  %8.1f ms  %6.1f M opens/s%n",
+                      loopTime / 1e6, total * 1e3 / loopTime);
+    System.out.printf("openAll    %8.1f ms  %6.1f M opens/s%n",
+                      batchTime / 1e6, total * 1e3 / batchTime);
+  }
+}
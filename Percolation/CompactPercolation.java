@@ -0,0 +1,488 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CompactPercolation {
+
+  // Status bits kept for every union find root
+  private static final byte TOP = 1;
+  private static final byte BOTTOM = 2;
+
+  private long[] grid;
+  private long[] pending;
+  private CompactPercolation replay;
+  private GridUnionFind unionFind;
+  private int[] clusterSize;
+  private int GRID_SIZE;
+  private boolean percolates;
+  private int components;
+  private int largestCluster;
+  private int newlyFull;
+  private List<PercolationListener> listeners =
+    new ArrayList<PercolationListener>();
+
+  public CompactPercolation(int N) {
+
+    if (N <= 0 || N > 46340) throw new IllegalArgumentException();
+
+    // A single Union Find without virtual sites.
+    // Instead of a virtual top and virtual bottom every root
+    // remembers if its component touches the top or bottom row,
+    // which means there is no backwash and no second Union Find.
+    unionFind = new GridUnionFind(N);
+
+    // Size of every cluster, only valid at the root
+    clusterSize = new int[N * N];
+
+    // Open sites are kept as one bit per site in row major order
+    grid = new long[(N * N + 63) >>> 6];
+    GRID_SIZE = N;
+  }
+
+  // block every site again, keeping the allocated arrays
+  public void reset() {
+    Arrays.fill(grid, 0L);
+    unionFind.reset();
+    percolates = false;
+    components = 0;
+    largestCluster = 0;
+  }
+
+  // listener is told about merges, sites becoming full
+  // and the moment the system percolates
+  public void addListener(PercolationListener listener) {
+
+    if (listener == null) throw new NullPointerException();
+
+    listeners.add(listener);
+  }
+
+  public void removeListener(PercolationListener listener) {
+    listeners.remove(listener);
+  }
+
+  // number of clusters of open sites
+  public int componentCount() {
+    return components;
+  }
+
+  // number of sites in the largest cluster of open sites
+  public int largestCluster() {
+    return largestCluster;
+  }
+
+  // open site (row i, column j) if it is not open already
+  public void open(int i, int j) {
+
+    checkBounds(i, j);
+
+    int site = index(i, j);
+
+    // Check if its already open
+    if (isOpen(site)) {
+      return;
+    }
+
+    openSite(site, i, j);
+  }
+
+  // open every site (rows[k], cols[k]) and return the position k in the
+  // batch at which the system first percolates, or -1 if the batch does
+  // not make it percolate. Same as calling open for every k in order,
+  // except that listeners may see large batches in row major order.
+  public int openAll(int[] rows, int[] cols) {
+
+    if (rows.length != cols.length) throw new IllegalArgumentException();
+
+    // Check the whole batch before opening anything
+    for (int k = 0; k < rows.length; k++) {
+      checkBounds(rows[k], cols[k]);
+    }
+
+    int[] sites = new int[rows.length];
+    for (int k = 0; k < rows.length; k++) {
+      sites[k] = index(rows[k], cols[k]);
+    }
+    return openBatch(sites);
+  }
+
+  // open every site of a batch of row major site numbers, site
+  // (i, j) being (i - 1) * N + (j - 1), and return the position in the
+  // batch at which the system first percolates, or -1 if it does not
+  public int openAll(int[] sites) {
+
+    for (int k = 0; k < sites.length; k++) {
+      if (sites[k] < 0 || sites[k] >= GRID_SIZE * GRID_SIZE) {
+        throw new IndexOutOfBoundsException();
+      }
+    }
+    return openBatch(sites);
+  }
+
+  // Opens the batch in row major order instead of batch order, so the
+  // grid and the union find are walked front to back. The sites to open
+  // are first collected in the pending bitset, which also drops the
+  // duplicates and the sites that are open already.
+  private int openBatch(int[] sites) {
+
+    boolean percolatedBefore = percolates;
+
+    // Fewer sites than bitset words are too spread out for the order
+    // to matter, open them in batch order
+    if (sites.length < grid.length) {
+      for (int k = 0; k < sites.length; k++) {
+        int site = sites[k];
+        if (isOpen(site)) continue;
+        openSite(site, site / GRID_SIZE + 1, site % GRID_SIZE + 1);
+        if (!percolatedBefore && percolates) return k;
+      }
+      return -1;
+    }
+
+    if (pending == null) pending = new long[grid.length];
+
+    for (int k = 0; k < sites.length; k++) {
+      int site = sites[k];
+      if (!isOpen(site)) pending[site >>> 6] |= 1L << site;
+    }
+
+    for (int word = 0; word < pending.length; word++) {
+      long bits = pending[word];
+      while (bits != 0) {
+        int site = (word << 6) + Long.numberOfTrailingZeros(bits);
+        openSite(site, site / GRID_SIZE + 1, site % GRID_SIZE + 1);
+        bits &= bits - 1;
+      }
+    }
+
+    int first = -1;
+    if (!percolatedBefore && percolates) {
+      first = firstPercolating(sites);
+    }
+
+    Arrays.fill(pending, 0L);
+    return first;
+  }
+
+  // The batch made the system percolate but it was opened in site order,
+  // so replay it in batch order on a scratch grid to find the position.
+  // This only happens once until the next reset, and the scratch grid
+  // is kept for the next time like pending.
+  private int firstPercolating(int[] sites) {
+
+    if (replay == null) {
+      replay = new CompactPercolation(GRID_SIZE);
+    } else {
+      replay.reset();
+    }
+
+    // Sites that were open before the batch, in row major order
+    for (int word = 0; word < grid.length; word++) {
+      long bits = grid[word] & ~pending[word];
+      while (bits != 0) {
+        int site = (word << 6) + Long.numberOfTrailingZeros(bits);
+        replay.openSite(site, site / GRID_SIZE + 1, site % GRID_SIZE + 1);
+        bits &= bits - 1;
+      }
+    }
+
+    for (int k = 0; k < sites.length; k++) {
+      int site = sites[k];
+      if (replay.isOpen(site)) continue;
+      replay.openSite(site, site / GRID_SIZE + 1, site % GRID_SIZE + 1);
+      if (replay.percolates) return k;
+    }
+    return -1;
+  }
+
+  private void openSite(int site, int i, int j) {
+
+    grid[site >>> 6] |= 1L << site;
+
+    if (i == 1) unionFind.mark(site, TOP);
+    if (i == GRID_SIZE) unionFind.mark(site, BOTTOM);
+
+    // The new site is a cluster of its own until the unions below
+    clusterSize[site] = 1;
+    components++;
+    largestCluster = Math.max(largestCluster, 1);
+    newlyFull = 1;
+
+    // Connect the surrounding open sites, the root after the
+    // last union carries the status bits of all of them
+    int root = site;
+    if (j != 1) root = join(root, site - 1, i, j);
+    if (j != GRID_SIZE) root = join(root, site + 1, i, j);
+    if (i != 1) root = join(root, site - GRID_SIZE, i, j);
+    if (i != GRID_SIZE) root = join(root, site + GRID_SIZE, i, j);
+
+    int flags = unionFind.flags(root);
+
+    if ((flags & TOP) != 0) {
+      for (int k = 0; k < listeners.size(); k++) {
+        listeners.get(k).full(i, j, newlyFull);
+      }
+    }
+
+    if (flags == (TOP | BOTTOM) && !percolates) {
+      percolates = true;
+      for (int k = 0; k < listeners.size(); k++) {
+        listeners.get(k).percolated(i, j);
+      }
+    }
+  }
+
+  // Union the cluster at root with the cluster of neighbor if the
+  // neighbor is open, keeping the cluster sizes and counts up to date.
+  // Returns the root of the joined cluster.
+  private int join(int root, int neighbor, int i, int j) {
+
+    if (!isOpen(neighbor)) return root;
+
+    int other = unionFind.find(neighbor);
+    if (other == root) return root;
+
+    int rootSize = clusterSize[root];
+    int otherSize = clusterSize[other];
+
+    // Sites of a cluster that was not full become
+    // full if the joined cluster is full
+    if ((unionFind.flags(other) & TOP) == 0) {
+      newlyFull += otherSize;
+    }
+
+    root = unionFind.union(root, other);
+    clusterSize[root] = rootSize + otherSize;
+    components--;
+    largestCluster = Math.max(largestCluster, rootSize + otherSize);
+
+    for (int k = 0; k < listeners.size(); k++) {
+      listeners.get(k).merged(i, j, rootSize, otherSize);
+    }
+    return root;
+  }
+
+  private int index(int i, int j) {
+    return (i - 1) * GRID_SIZE + (j - 1);
+  }
+
+  private boolean isOpen(int site) {
+    return (grid[site >>> 6] & (1L << site)) != 0;
+  }
+
+  // is site (row i, column j) open?
+  public boolean isOpen(int i, int j) {
+
+    checkBounds(i, j);
+
+    return isOpen(index(i, j));
+  }
+
+  // is site (row i, column j) full?
+  public boolean isFull(int i, int j) {
+
+    checkBounds(i, j);
+
+    int site = index(i, j);
+    return isOpen(site) && (unionFind.flags(site) & TOP) != 0;
+  }
+
+  // does the system percolate?
+  public boolean percolates() {
+    return percolates;
+  }
+
+  private void checkBounds(int i, int j) {
+
+    if (i < 1 || i > GRID_SIZE) {
+      throw new IndexOutOfBoundsException();
+    } else if (j < 1 || j > GRID_SIZE) {
+      throw new IndexOutOfBoundsException();
+    }
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // unit testing, compares against Percolation on random grids
+  public static void main(String[] args) {
+
+    print("Check a single site grid");
+    CompactPercolation single = new CompactPercolation(1);
+    assert (!single.percolates());
+    assert (!single.isFull(1, 1));
+    single.open(1, 1);
+    assert (single.isOpen(1, 1));
+    assert (single.isFull(1, 1));
+    assert (single.percolates());
+    print("Passed");
+
+    print("Check that there is no backwash");
+    CompactPercolation backwash = new CompactPercolation(3);
+    backwash.open(1, 1);
+    backwash.open(2, 1);
+    backwash.open(3, 1);
+    backwash.open(3, 3);
+    assert (backwash.percolates());
+    assert (!backwash.isFull(3, 3));
+    print("Passed");
+
+    print("Check that reset blocks every site");
+    backwash.reset();
+    assert (!backwash.percolates());
+    for (int i = 1; i <= 3; i++) {
+      for (int j = 1; j <= 3; j++) {
+        assert (!backwash.isOpen(i, j));
+        assert (!backwash.isFull(i, j));
+      }
+    }
+    backwash.open(1, 3);
+    backwash.open(2, 3);
+    backwash.open(3, 3);
+    assert (backwash.percolates());
+    assert (!backwash.isFull(3, 1));
+    print("Passed");
+
+    print("Check cluster counts and events");
+    CompactPercolation events = new CompactPercolation(3);
+    final int[] counts = new int[4];
+    events.addListener(new PercolationListener() {
+      public void merged(int i, int j, int firstSize, int secondSize) {
+        counts[0]++;
+      }
+      public void full(int i, int j, int count) {
+        counts[1] += count;
+      }
+      public void percolated(int i, int j) {
+        counts[2]++;
+        counts[3] = i * 10 + j;
+      }
+    });
+    events.open(2, 2);
+    events.open(3, 2);
+    assert (events.componentCount() == 1);
+    assert (events.largestCluster() == 2);
+    assert (counts[0] == 1);
+    events.open(1, 1);
+    assert (events.componentCount() == 2);
+    assert (counts[1] == 1);
+    events.open(1, 2);
+    assert (events.componentCount() == 1);
+    assert (events.largestCluster() == 4);
+    assert (counts[0] == 3);
+    assert (counts[1] == 4);
+    assert (counts[2] == 1);
+    assert (counts[3] == 12);
+    events.open(3, 3);
+    assert (counts[1] == 5);
+    assert (counts[2] == 1);
+    events.reset();
+    assert (events.componentCount() == 0);
+    assert (events.largestCluster() == 0);
+    print("Passed");
+
+    print("Check openAll against open in a loop");
+    for (int N = 1; N <= 40; N++) {
+      CompactPercolation expected = new CompactPercolation(N);
+      CompactPercolation actual = new CompactPercolation(N);
+      int first = -1;
+      int found = -1;
+
+      // A few batches with duplicates, some of them after percolation
+      for (int b = 0; b < 6; b++) {
+        int size = StdRandom.uniform(1, N * N + 1);
+        int[] rows = new int[size];
+        int[] cols = new int[size];
+        for (int k = 0; k < size; k++) {
+          rows[k] = StdRandom.uniform(1, N + 1);
+          cols[k] = StdRandom.uniform(1, N + 1);
+          boolean before = expected.percolates();
+          expected.open(rows[k], cols[k]);
+          if (!before && expected.percolates()) first = k;
+        }
+        int result = actual.openAll(rows, cols);
+        if (result != -1) {
+          assert (found == -1);
+          assert (result == first);
+          found = result;
+        }
+        assert (expected.percolates() == actual.percolates());
+        assert (expected.componentCount() == actual.componentCount());
+        assert (expected.largestCluster() == actual.largestCluster());
+        for (int i = 1; i <= N; i++) {
+          for (int j = 1; j <= N; j++) {
+            assert (expected.isFull(i, j) == actual.isFull(i, j));
+          }
+        }
+      }
+      assert (found == first);
+    }
+
+    CompactPercolation rejected = new CompactPercolation(3);
+    try {
+      rejected.openAll(new int[] { 1, 4 }, new int[] { 1, 1 });
+      assert (false);
+    } catch (IndexOutOfBoundsException e) {
+      // the whole batch is rejected
+      assert (!rejected.isOpen(1, 1));
+    }
+
+    // Row major site numbers, the column 0, 3, 6 percolates at 6
+    assert (rejected.openAll(new int[] { 6, 0, 0, 3, 6, 8 }) == 3);
+    assert (rejected.openAll(new int[] { 1 }) == -1);
+
+    // Trials on a reset grid use the same scratch grid
+    CompactPercolation scratch = rejected.replay;
+    assert (scratch != null);
+    rejected.reset();
+    assert (rejected.openAll(new int[] { 7, 1, 4, 2, 7, 0 }) == 2);
+    assert (rejected.replay == scratch);
+    rejected.reset();
+    assert (rejected.openAll(new int[] { 2, 5, 8, 5 }) == 2);
+    assert (rejected.replay == scratch);
+    print("Passed");
+
+    print("Check against Percolation on random grids");
+    for (int N = 2; N <= 30; N++) {
+      Percolation expected = new Percolation(N);
+      CompactPercolation actual = new CompactPercolation(N);
+      final int[] fullCount = new int[1];
+      actual.addListener(new PercolationListener() {
+        public void full(int i, int j, int count) {
+          fullCount[0] += count;
+        }
+      });
+
+      // The second round runs on reset grids
+      for (int round = 0; round < 2; round++) {
+        if (round > 0) {
+          expected.reset();
+          actual.reset();
+          fullCount[0] = 0;
+        }
+        while (!actual.percolates()) {
+          int x = StdRandom.uniform(1, N + 1);
+          int y = StdRandom.uniform(1, N + 1);
+          expected.open(x, y);
+          actual.open(x, y);
+          assert (expected.percolates() == actual.percolates());
+        }
+        int full = 0;
+        for (int i = 1; i <= N; i++) {
+          for (int j = 1; j <= N; j++) {
+            assert (expected.isOpen(i, j) == actual.isOpen(i, j));
+            assert (expected.isFull(i, j) == actual.isFull(i, j));
+            if (actual.isFull(i, j)) full++;
+          }
+        }
+        assert (fullCount[0] == full);
+        assert (actual.componentCount() >= 1);
+        assert (actual.largestCluster() >= N);
+      }
+    }
+    print("Passed");
+
+    print("Operations Successful");
+  }
+}
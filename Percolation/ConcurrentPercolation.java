@@ -0,0 +1,235 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class ConcurrentPercolation {
+
+  private static final int BOTTOM = 1;
+
+  private AtomicLongArray grid;
+  private ConcurrentUnionFind unionFind;
+  private int GRID_SIZE;
+  private int UF_TOP;
+  private volatile boolean percolates;
+
+  // Percolation that any number of threads may open sites on at the
+  // same time. The top row is joined to a virtual top site in a lock
+  // free Union Find, while reaching the bottom row is a flag on the
+  // roots, so there is no backwash. Every call sees the effect of
+  // every open call that returned before it started.
+  public ConcurrentPercolation(int N) {
+    this(N, System.nanoTime());
+  }
+
+  // seed fixes the random linking order of the Union Find
+  public ConcurrentPercolation(int N, long seed) {
+
+    if (N <= 0 || N > 46340) throw new IllegalArgumentException();
+
+    unionFind = new ConcurrentUnionFind(N * N + 1, seed);
+    grid = new AtomicLongArray((N * N + 63) >>> 6);
+    GRID_SIZE = N;
+    UF_TOP = N * N;
+  }
+
+  // open site (row i, column j) if it is not open already
+  public void open(int i, int j) {
+
+    checkBounds(i, j);
+
+    int site = index(i, j);
+
+    // Claim the site, only one thread gets to open it
+    long bit = 1L << site;
+    long word;
+    do {
+      word = grid.get(site >>> 6);
+      if ((word & bit) != 0) return;
+    } while (!grid.compareAndSet(site >>> 6, word, word | bit));
+
+    // A neighbor opened at the same time either sees this site as
+    // open or is seen as open here, so the union is never lost
+    if (i == 1) unionFind.union(site, UF_TOP);
+    if (j != 1) unionOpen(site, site - 1);
+    if (j != GRID_SIZE) unionOpen(site, site + 1);
+    if (i != 1) unionOpen(site, site - GRID_SIZE);
+    if (i != GRID_SIZE) unionOpen(site, site + GRID_SIZE);
+    if (i == GRID_SIZE) unionFind.addFlags(site, BOTTOM);
+
+    // The bottom flag may still be on its way to the root, but then
+    // the thread carrying it checks again after it has arrived
+    if (!percolates
+        && (unionFind.flags(site) & BOTTOM) != 0
+        && unionFind.connected(site, UF_TOP)) {
+      percolates = true;
+    }
+  }
+
+  private void unionOpen(int site, int neighbor) {
+
+    if (!isOpen(neighbor)) return;
+
+    if (unionFind.union(site, neighbor)) {
+      // This thread moved flags to a new root, check them there
+      int root = unionFind.find(site);
+      if (!percolates
+          && (unionFind.flags(root) & BOTTOM) != 0
+          && unionFind.connected(root, UF_TOP)) {
+        percolates = true;
+      }
+    }
+  }
+
+  private int index(int i, int j) {
+    return (i - 1) * GRID_SIZE + (j - 1);
+  }
+
+  private boolean isOpen(int site) {
+    return (grid.get(site >>> 6) & (1L << site)) != 0;
+  }
+
+  // is site (row i, column j) open?
+  public boolean isOpen(int i, int j) {
+
+    checkBounds(i, j);
+
+    return isOpen(index(i, j));
+  }
+
+  // is site (row i, column j) full?
+  public boolean isFull(int i, int j) {
+
+    checkBounds(i, j);
+
+    int site = index(i, j);
+    return isOpen(site) && unionFind.connected(site, UF_TOP);
+  }
+
+  // does the system percolate?
+  public boolean percolates() {
+    return percolates;
+  }
+
+  private void checkBounds(int i, int j) {
+
+    if (i < 1 || i > GRID_SIZE) {
+      throw new IndexOutOfBoundsException();
+    } else if (j < 1 || j > GRID_SIZE) {
+      throw new IndexOutOfBoundsException();
+    }
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // Open the sites in order, split across the given number of threads
+  // taking every threads-th site each, while a reader thread checks that
+  // what it observes never goes backwards. Returns the grid afterwards.
+  private static ConcurrentPercolation stress(final int N, final int[] order,
+                                              final int count, int threads,
+                                              long seed)
+    throws InterruptedException {
+
+    final ConcurrentPercolation grid = new ConcurrentPercolation(N, seed);
+    final AtomicBoolean done = new AtomicBoolean();
+    final String[] failure = new String[1];
+    Thread[] writers = new Thread[threads];
+
+    // Once percolates or isFull returned true it must stay true
+    Thread reader = new Thread(new Runnable() {
+      public void run() {
+        SplittableRandom random = new SplittableRandom(N);
+        boolean percolated = false;
+        boolean[] full = new boolean[N * N];
+        while (!done.get()) {
+          boolean now = grid.percolates();
+          if (percolated && !now) failure[0] = "percolates went back";
+          percolated = now;
+
+          int site = random.nextInt(N * N);
+          boolean isFull = grid.isFull(site / N + 1, site % N + 1);
+          if (full[site] && !isFull) failure[0] = "isFull went back";
+          full[site] = isFull;
+        }
+      }
+    });
+    reader.start();
+
+    for (int t = 0; t < threads; t++) {
+      final int offset = t;
+      final int step = threads;
+      writers[t] = new Thread(new Runnable() {
+        public void run() {
+          for (int k = offset; k < count; k += step) {
+            grid.open(order[k] / N + 1, order[k] % N + 1);
+          }
+        }
+      });
+      writers[t].start();
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+    done.set(true);
+    reader.join();
+
+    if (failure[0] != null) throw new AssertionError(failure[0]);
+    return grid;
+  }
+
+  // unit testing, a linearizability stress test against CompactPercolation
+  public static void main(String[] args) throws InterruptedException {
+
+    print("Check a single site grid");
+    ConcurrentPercolation single = new ConcurrentPercolation(1);
+    assert (!single.percolates());
+    single.open(1, 1);
+    assert (single.isFull(1, 1));
+    assert (single.percolates());
+    print("Passed");
+
+    print("Check that there is no backwash");
+    ConcurrentPercolation backwash = new ConcurrentPercolation(3);
+    backwash.open(1, 1);
+    backwash.open(2, 1);
+    backwash.open(3, 1);
+    backwash.open(3, 3);
+    assert (backwash.percolates());
+    assert (!backwash.isFull(3, 3));
+    print("Passed");
+
+    print("Check concurrent opens against sequential opens");
+    SplittableRandom random = new SplittableRandom(11);
+    for (int round = 0; round < 200; round++) {
+      int N = random.nextInt(2, 60);
+      int threads = random.nextInt(2, 9);
+      SitePermutation permutation = new SitePermutation(N * N);
+      int count = random.nextInt(1, N * N + 1);
+      int[] order = new int[count];
+      for (int k = 0; k < count; k++) {
+        order[k] = permutation.next(random);
+      }
+
+      ConcurrentPercolation actual =
+        stress(N, order, count, threads, random.nextLong());
+
+      // Once every open returned the result must not depend on the
+      // order the threads opened the sites in
+      CompactPercolation expected = new CompactPercolation(N);
+      for (int k = 0; k < count; k++) {
+        expected.open(order[k] / N + 1, order[k] % N + 1);
+      }
+      assert (expected.percolates() == actual.percolates());
+      for (int i = 1; i <= N; i++) {
+        for (int j = 1; j <= N; j++) {
+          assert (expected.isOpen(i, j) == actual.isOpen(i, j));
+          assert (expected.isFull(i, j) == actual.isFull(i, j));
+        }
+      }
+    }
+    print("Passed");
+
+    print("Operations Successful");
+  }
+}
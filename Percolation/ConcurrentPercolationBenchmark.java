@@ -0,0 +1,60 @@
+import java.util.SplittableRandom;
+
+public class ConcurrentPercolationBenchmark {
+
+  private static final long SEED = 20150101L;
+
+  // usage: java ConcurrentPercolationBenchmark [N [maxThreads]]
+  // Opens the same random 60% of the sites of an N by N grid with
+  // 1, 2, 4, ... threads and prints the throughput for each.
+  public static void main(String[] args) throws InterruptedException {
+
+    final int N = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+    int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+
+    SplittableRandom random = new SplittableRandom(SEED);
+    SitePermutation permutation = new SitePermutation(N * N);
+    final int count = (int) (0.6 * N * N);
+    final int[] order = new int[count];
+    for (int k = 0; k < count; k++) {
+      order[k] = permutation.next(random);
+    }
+
+    // Single threaded reference
+    long start = System.nanoTime();
+    CompactPercolation compact = new CompactPercolation(N);
+    for (int k = 0; k < count; k++) {
+      compact.open(order[k] / N + 1, order[k] % N + 1);
+    }
+    long compactTime = System.nanoTime() - start;
+    System.out.printf("CompactPercolation       %8.1f ms  %6.2f M opens/s%n",
+                      compactTime / 1e6, count * 1e3 / compactTime);
+
+    for (int threads = 1; threads <= maxThreads; threads *= 2) {
+      final ConcurrentPercolation grid = new ConcurrentPercolation(N, SEED);
+      Thread[] workers = new Thread[threads];
+
+      start = System.nanoTime();
+      for (int t = 0; t < threads; t++) {
+        final int from = (int) ((long) count * t / threads);
+        final int to = (int) ((long) count * (t + 1) / threads);
+        workers[t] = new Thread(new Runnable() {
+          public void run() {
+            for (int k = from; k < to; k++) {
+              grid.open(order[k] / N + 1, order[k] % N + 1);
+            }
+          }
+        });
+        workers[t].start();
+      }
+      for (Thread worker : workers) {
+        worker.join();
+      }
+      long time = System.nanoTime() - start;
+
+      assert (grid.percolates() == compact.percolates());
+      System.out.printf("ConcurrentPercolation %2d %8.1f ms  %6.2f M opens/s%n",
+                        threads, time / 1e6, count * 1e3 / time);
+    }
+  }
+}
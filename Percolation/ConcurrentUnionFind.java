@@ -0,0 +1,185 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ConcurrentUnionFind {
+
+  private AtomicIntegerArray parent;
+  private AtomicIntegerArray flags;
+  private int seed;
+
+  // Lock free Union Find for n sites that any number of threads may
+  // use at the same time. Roots are linked in a random order fixed by
+  // seed: every site gets a random priority and the root with the lower
+  // priority goes below the other, which keeps the trees shallow in
+  // expectation without any rank or size to update.
+  public ConcurrentUnionFind(int n, long seed) {
+
+    if (n <= 0) throw new IllegalArgumentException();
+
+    parent = new AtomicIntegerArray(n);
+    flags = new AtomicIntegerArray(n);
+    this.seed = new SplittableRandom(seed).nextInt();
+
+    for (int i = 0; i < n; i++) {
+      parent.set(i, i);
+    }
+  }
+
+  // component identifier for p. The identifier can change while other
+  // threads link roots, it is only stable once nothing else runs.
+  public int find(int p) {
+
+    int q = parent.get(p);
+    while (p != q) {
+      int grandparent = parent.get(q);
+      if (grandparent == q) return q;
+
+      // Path halving, losing the race to another thread is fine
+      parent.compareAndSet(p, q, grandparent);
+      p = grandparent;
+      q = parent.get(p);
+    }
+    return p;
+  }
+
+  // are p and q in the same component?
+  public boolean connected(int p, int q) {
+
+    while (true) {
+      int rootP = find(p);
+      int rootQ = find(q);
+      if (rootP == rootQ) return true;
+
+      // rootP was still a root after rootQ was found, so the two
+      // components were apart at that moment
+      if (parent.get(rootP) == rootP) return false;
+    }
+  }
+
+  // merge the components of p and q, returns false if
+  // they were already the same component
+  public boolean union(int p, int q) {
+
+    while (true) {
+      int rootP = find(p);
+      int rootQ = find(q);
+      if (rootP == rootQ) return false;
+
+      if (before(rootQ, rootP)) {
+        int temp = rootP;
+        rootP = rootQ;
+        rootQ = temp;
+      }
+
+      // Link the root with the lower priority, retry if it was
+      // linked somewhere else in the meantime
+      if (parent.compareAndSet(rootP, rootP, rootQ)) {
+        addFlags(rootQ, flags.get(rootP));
+        return true;
+      }
+    }
+  }
+
+  // set bits in the flags of the component containing p and
+  // return the root the bits were left at
+  public int addFlags(int p, int bits) {
+
+    while (true) {
+      int root = find(p);
+      int old = flags.get(root);
+
+      if ((old | bits) != old && !flags.compareAndSet(root, old, old | bits)) {
+        continue;
+      }
+
+      // Whoever links root below another root reads its flags after
+      // the link, so if root is still a root here the bits are safe.
+      // Otherwise follow it to its new root.
+      if (parent.get(root) == root) return root;
+      p = root;
+    }
+  }
+
+  // flags of the component containing p, flags still on their way
+  // to the root of a component being linked may be missing
+  public int flags(int p) {
+    return flags.get(find(p));
+  }
+
+  // does a come before b in the random linking order?
+  private boolean before(int a, int b) {
+
+    int priorityA = mix(a);
+    int priorityB = mix(b);
+    if (priorityA != priorityB) return priorityA < priorityB;
+    return a < b;
+  }
+
+  private int mix(int x) {
+    x = (x ^ seed) * 0x9E3779B9;
+    x ^= x >>> 16;
+    x *= 0x85EBCA6B;
+    return x ^ (x >>> 13);
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // unit testing
+  public static void main(String[] args) throws InterruptedException {
+
+    print("Check against WeightedQuickUnionUF");
+    int n = 10000;
+    ConcurrentUnionFind actual = new ConcurrentUnionFind(n, 1);
+    WeightedQuickUnionUF expected = new WeightedQuickUnionUF(n);
+    for (int i = 0; i < 20000; i++) {
+      int p = StdRandom.uniform(n);
+      int q = StdRandom.uniform(n);
+      assert (actual.union(p, q) == !expected.connected(p, q));
+      expected.union(p, q);
+      int r = StdRandom.uniform(n);
+      assert (actual.connected(p, r) == expected.connected(p, r));
+    }
+    print("Passed");
+
+    print("Check flags follow the root");
+    ConcurrentUnionFind marked = new ConcurrentUnionFind(4, 2);
+    marked.addFlags(0, 1);
+    marked.addFlags(3, 2);
+    marked.union(0, 1);
+    marked.union(2, 3);
+    assert (marked.flags(1) == 1);
+    marked.union(1, 2);
+    assert (marked.flags(0) == 3);
+    print("Passed");
+
+    print("Check concurrent unions of a chain");
+    final int size = 200000;
+    final ConcurrentUnionFind chain = new ConcurrentUnionFind(size, 3);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      final int offset = t;
+      threads[t] = new Thread(new Runnable() {
+        public void run() {
+          for (int i = offset; i + 1 < size; i += 4) {
+            chain.union(i, i + 1);
+            chain.addFlags(i, 1 << offset);
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    int root = chain.find(0);
+    for (int i = 0; i < size; i++) {
+      assert (chain.find(i) == root);
+    }
+    assert (chain.flags(0) == 15);
+    print("Passed");
+
+    print("Operations Successful");
+  }
+}
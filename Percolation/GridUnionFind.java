@@ -0,0 +1,220 @@
+import java.util.Arrays;
+
+public class GridUnionFind {
+
+  // The rank of a root only needs five bits, the remaining
+  // three bits of the same byte hold the flags of the root
+  private static final int RANK_MASK = 0x1F;
+  private static final int FLAG_SHIFT = 5;
+
+  private int[] parent;
+  private byte[] rank;
+  private int count;
+  private int GRID_SIZE;
+  private int GRID_SITES;
+
+  // Union Find over an N by N grid stored in row major order,
+  // sites 0 to N * N - 1 are the grid and the extra sites
+  // after them can be used as virtual sites
+  public GridUnionFind(int N, int extraSites) {
+
+    if (N <= 0 || N > 46340 || extraSites < 0) {
+      throw new IllegalArgumentException();
+    }
+
+    GRID_SIZE = N;
+    GRID_SITES = N * N;
+    count = GRID_SITES + extraSites;
+
+    parent = new int[count];
+    rank = new byte[count];
+
+    for (int i = 0; i < count; i++) {
+      parent[i] = i;
+    }
+  }
+
+  public GridUnionFind(int N) {
+    this(N, 0);
+  }
+
+  // put every site back in its own component without flags,
+  // reusing the arrays instead of allocating new ones
+  public void reset() {
+
+    count = parent.length;
+
+    for (int i = 0; i < count; i++) {
+      parent[i] = i;
+    }
+    Arrays.fill(rank, (byte) 0);
+  }
+
+  // number of components
+  public int count() {
+    return count;
+  }
+
+  // component identifier for p, halving the path on the way up
+  public int find(int p) {
+
+    int q = parent[p];
+    while (p != q) {
+      // Only write when it shortens the path, most sites
+      // already point straight at their root
+      int grandparent = parent[q];
+      if (grandparent == q) return q;
+      parent[p] = grandparent;
+      p = grandparent;
+      q = parent[p];
+    }
+    return p;
+  }
+
+  public boolean connected(int p, int q) {
+    return find(p) == find(q);
+  }
+
+  // merge the components of p and q and return the new root,
+  // the new root keeps the flags of both old roots
+  public int union(int p, int q) {
+    return link(find(p), find(q));
+  }
+
+  // Link two roots by rank, the shorter tree goes below the taller one
+  private int link(int rootP, int rootQ) {
+
+    if (rootP == rootQ) return rootP;
+
+    int rankP = rank[rootP] & RANK_MASK;
+    int rankQ = rank[rootQ] & RANK_MASK;
+
+    if (rankP < rankQ) {
+      int temp = rootP;
+      rootP = rootQ;
+      rootQ = temp;
+    }
+
+    // Keep the flags of both roots on the new root
+    int merged = rank[rootP] | (rank[rootQ] & ~RANK_MASK);
+    if (rankP == rankQ) merged++;
+
+    parent[rootQ] = rootP;
+    rank[rootP] = (byte) merged;
+    count--;
+    return rootP;
+  }
+
+  // union site with its open neighbors and return the new root,
+  // open holds one bit per grid site in row major order
+  public int unionNeighbors(int site, long[] open) {
+
+    int row = site / GRID_SIZE;
+    int column = site - row * GRID_SIZE;
+
+    // root stays a root after every link, so only the
+    // neighbors need a find
+    int root = find(site);
+
+    if (column != 0 && isOpen(open, site - 1)) {
+      root = link(root, find(site - 1));
+    }
+    if (column != GRID_SIZE - 1 && isOpen(open, site + 1)) {
+      root = link(root, find(site + 1));
+    }
+    if (row != 0 && isOpen(open, site - GRID_SIZE)) {
+      root = link(root, find(site - GRID_SIZE));
+    }
+    if (row != GRID_SIZE - 1 && isOpen(open, site + GRID_SIZE)) {
+      root = link(root, find(site + GRID_SIZE));
+    }
+    return root;
+  }
+
+  private static boolean isOpen(long[] open, int site) {
+    return (open[site >>> 6] & (1L << site)) != 0;
+  }
+
+  // set bits in the flags of the component containing p,
+  // only the three lowest bits can be used
+  public void mark(int p, int bits) {
+
+    if ((bits & ~7) != 0) throw new IllegalArgumentException();
+
+    rank[find(p)] |= bits << FLAG_SHIFT;
+  }
+
+  // flags of the component containing p
+  public int flags(int p) {
+    return (rank[find(p)] & 0xFF) >>> FLAG_SHIFT;
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // unit testing
+  public static void main(String[] args) {
+
+    print("Check initialization");
+    GridUnionFind uf = new GridUnionFind(3, 2);
+    assert (uf.count() == 11);
+    for (int i = 0; i < 11; i++) {
+      assert (uf.find(i) == i);
+      assert (uf.flags(i) == 0);
+    }
+    print("Passed");
+
+    print("Check union and flags");
+    uf.mark(0, 1);
+    uf.mark(8, 2);
+    uf.union(0, 9);
+    assert (uf.connected(0, 9));
+    assert (uf.flags(9) == 1);
+    assert (uf.count() == 10);
+    uf.union(8, 10);
+    uf.union(9, 10);
+    assert (uf.connected(0, 8));
+    assert (uf.flags(0) == 3);
+    assert (uf.count() == 8);
+    print("Passed");
+
+    print("Check unionNeighbors only joins open neighbors");
+    GridUnionFind grid = new GridUnionFind(3);
+    long[] open = new long[1];
+    open[0] = (1L << 1) | (1L << 3) | (1L << 4) | (1L << 8);
+    int root = grid.unionNeighbors(4, open);
+    assert (grid.connected(4, 1));
+    assert (grid.connected(4, 3));
+    assert (!grid.connected(4, 5));
+    assert (!grid.connected(4, 7));
+    assert (root == grid.find(1));
+    print("Passed");
+
+    print("Check reset");
+    uf.reset();
+    assert (uf.count() == 11);
+    for (int i = 0; i < 11; i++) {
+      assert (uf.find(i) == i);
+      assert (uf.flags(i) == 0);
+    }
+    print("Passed");
+
+    print("Check against WeightedQuickUnionUF");
+    int n = 100;
+    GridUnionFind actual = new GridUnionFind(n);
+    WeightedQuickUnionUF expected = new WeightedQuickUnionUF(n * n);
+    for (int i = 0; i < 5000; i++) {
+      int p = StdRandom.uniform(n * n);
+      int q = StdRandom.uniform(n * n);
+      actual.union(p, q);
+      expected.union(p, q);
+      assert (actual.count() == expected.count());
+      int r = StdRandom.uniform(n * n);
+      assert (actual.connected(p, r) == expected.connected(p, r));
+    }
+    print("Passed");
+
+    print("Operations Successful");
+  }
+}
@@ -0,0 +1,350 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class MappedPercolation implements Closeable {
+
+  // Status bits of a root, stored above the rank in the state byte
+  private static final int RANK_MASK = 0x3F;
+  private static final int TOP = 0x40;
+  private static final int BOTTOM = 0x80;
+
+  // The file is mapped in chunks of 1 GB, a multiple of 8 so a
+  // long never straddles two chunks
+  private static final int CHUNK_BITS = 30;
+  private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+  private Path file;
+  private boolean deleteOnClose;
+  private FileChannel channel;
+  private MappedByteBuffer[] chunks;
+  private long OPEN_OFFSET;
+  private long PARENT_OFFSET;
+  private long STATE_OFFSET;
+  private long GRID_SIZE;
+  private boolean percolates;
+
+  // N by N grid kept in a temporary file that is deleted on close
+  public MappedPercolation(int N) throws IOException {
+    this(N, Files.createTempFile("percolation", ".grid"), true);
+  }
+
+  // N by N grid kept in file, which is overwritten
+  public MappedPercolation(int N, Path file) throws IOException {
+    this(N, file, false);
+  }
+
+  private MappedPercolation(int N, Path file, boolean deleteOnClose)
+    throws IOException {
+
+    this.file = file;
+    this.deleteOnClose = deleteOnClose;
+
+    // Whatever fails, the channel must not stay open and a temporary
+    // file must not stay on disk, close cannot be called on a grid
+    // that was never constructed
+    try {
+      if (N <= 0) throw new IllegalArgumentException();
+
+      long sites = (long) N * N;
+      GRID_SIZE = N;
+
+      // The file holds the open bitset, then one long parent per site,
+      // then one state byte per site with the rank and the status bits.
+      // A parent of 0 means the site is its own root and a parent of
+      // p + 1 means site p, so the zero filled new file needs no
+      // initialization pass.
+      OPEN_OFFSET = 0;
+      PARENT_OFFSET = ((sites + 63) >>> 6) * 8;
+      long length;
+      try {
+        STATE_OFFSET = Math.addExact(PARENT_OFFSET,
+                                     Math.multiplyExact(sites, 8L));
+        length = Math.addExact(STATE_OFFSET, sites);
+      } catch (ArithmeticException e) {
+        throw new IllegalArgumentException("grid too large: " + N);
+      }
+      long count = ((length - 1) >>> CHUNK_BITS) + 1;
+      if (count > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("grid too large: " + N);
+      }
+
+      channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                 StandardOpenOption.READ,
+                                 StandardOpenOption.WRITE,
+                                 StandardOpenOption.TRUNCATE_EXISTING);
+
+      chunks = new MappedByteBuffer[(int) count];
+      for (int c = 0; c < count; c++) {
+        long position = (long) c << CHUNK_BITS;
+        long size = Math.min(CHUNK_MASK + 1, length - position);
+        chunks[c] = channel.map(FileChannel.MapMode.READ_WRITE, position,
+                                size);
+        chunks[c].order(ByteOrder.nativeOrder());
+      }
+    } catch (Throwable e) {
+      abandon(e);
+      throw e;
+    }
+  }
+
+  // Release what a failed constructor got so far, the chunks already
+  // mapped are unmapped once they are garbage collected
+  private void abandon(Throwable cause) {
+
+    chunks = null;
+    try {
+      if (channel != null) channel.close();
+    } catch (IOException e) {
+      cause.addSuppressed(e);
+    }
+    channel = null;
+    try {
+      if (deleteOnClose) Files.deleteIfExists(file);
+    } catch (IOException e) {
+      cause.addSuppressed(e);
+    }
+  }
+
+  // open site (row i, column j) if it is not open already
+  public void open(int i, int j) {
+
+    checkBounds(i, j);
+
+    long site = index(i, j);
+
+    // Check if its already open
+    if (isOpen(site)) {
+      return;
+    }
+
+    long word = OPEN_OFFSET + (site >>> 6) * 8;
+    putLong(word, getLong(word) | (1L << site));
+
+    if (i == 1) mark(site, TOP);
+    if (i == GRID_SIZE) mark(site, BOTTOM);
+
+    // Connect the surrounding open sites
+    long root = site;
+    if (j != 1) root = unionOpen(root, site - 1);
+    if (j != GRID_SIZE) root = unionOpen(root, site + 1);
+    if (i != 1) root = unionOpen(root, site - GRID_SIZE);
+    if (i != GRID_SIZE) root = unionOpen(root, site + GRID_SIZE);
+
+    if ((getByte(STATE_OFFSET + root) & (TOP | BOTTOM)) == (TOP | BOTTOM)) {
+      percolates = true;
+    }
+  }
+
+  // is site (row i, column j) open?
+  public boolean isOpen(int i, int j) {
+
+    checkBounds(i, j);
+
+    return isOpen(index(i, j));
+  }
+
+  // is site (row i, column j) full?
+  public boolean isFull(int i, int j) {
+
+    checkBounds(i, j);
+
+    long site = index(i, j);
+    return isOpen(site) && (getByte(STATE_OFFSET + find(site)) & TOP) != 0;
+  }
+
+  // does the system percolate?
+  public boolean percolates() {
+    return percolates;
+  }
+
+  // Flush the grid to disk and release the file. The mapped chunks
+  // are unmapped once they are garbage collected.
+  public void close() throws IOException {
+
+    if (channel == null) return;
+
+    for (MappedByteBuffer chunk : chunks) {
+      chunk.force();
+    }
+    chunks = null;
+    channel.close();
+    channel = null;
+
+    if (deleteOnClose) Files.deleteIfExists(file);
+  }
+
+  private long index(int i, int j) {
+    return (i - 1) * GRID_SIZE + (j - 1);
+  }
+
+  private boolean isOpen(long site) {
+    return (getLong(OPEN_OFFSET + (site >>> 6) * 8) & (1L << site)) != 0;
+  }
+
+  private long parent(long site) {
+    long stored = getLong(PARENT_OFFSET + site * 8);
+    return stored == 0 ? site : stored - 1;
+  }
+
+  private void setParent(long site, long parent) {
+    putLong(PARENT_OFFSET + site * 8, parent + 1);
+  }
+
+  private void mark(long site, int bits) {
+    long state = STATE_OFFSET + find(site);
+    putByte(state, (byte) (getByte(state) | bits));
+  }
+
+  // root of site, halving the path on the way up
+  private long find(long site) {
+
+    long parent = parent(site);
+    while (site != parent) {
+      long grandparent = parent(parent);
+      if (grandparent == parent) return parent;
+      setParent(site, grandparent);
+      site = grandparent;
+      parent = parent(site);
+    }
+    return site;
+  }
+
+  // Union the component at root with the one of neighbor if
+  // neighbor is open and return the new root
+  private long unionOpen(long root, long neighbor) {
+
+    if (!isOpen(neighbor)) return root;
+
+    long other = find(neighbor);
+    if (other == root) return root;
+
+    int rootState = getByte(STATE_OFFSET + root) & 0xFF;
+    int otherState = getByte(STATE_OFFSET + other) & 0xFF;
+
+    // Link the shorter tree below the taller one
+    if ((rootState & RANK_MASK) < (otherState & RANK_MASK)) {
+      long temp = root;
+      root = other;
+      other = temp;
+      int state = rootState;
+      rootState = otherState;
+      otherState = state;
+    }
+
+    int merged = rootState | (otherState & (TOP | BOTTOM));
+    if ((rootState & RANK_MASK) == (otherState & RANK_MASK)) merged++;
+
+    setParent(other, root);
+    putByte(STATE_OFFSET + root, (byte) merged);
+    return root;
+  }
+
+  private long getLong(long position) {
+    return chunks[(int) (position >>> CHUNK_BITS)]
+      .getLong((int) (position & CHUNK_MASK));
+  }
+
+  private void putLong(long position, long value) {
+    chunks[(int) (position >>> CHUNK_BITS)]
+      .putLong((int) (position & CHUNK_MASK), value);
+  }
+
+  private byte getByte(long position) {
+    return chunks[(int) (position >>> CHUNK_BITS)]
+      .get((int) (position & CHUNK_MASK));
+  }
+
+  private void putByte(long position, byte value) {
+    chunks[(int) (position >>> CHUNK_BITS)]
+      .put((int) (position & CHUNK_MASK), value);
+  }
+
+  private void checkBounds(int i, int j) {
+
+    if (i < 1 || i > GRID_SIZE) {
+      throw new IndexOutOfBoundsException();
+    } else if (j < 1 || j > GRID_SIZE) {
+      throw new IndexOutOfBoundsException();
+    }
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  private static int temporaryFiles(Path directory) throws IOException {
+    int count = 0;
+    try (DirectoryStream<Path> paths =
+           Files.newDirectoryStream(directory, "percolation*.grid")) {
+      for (Path path : paths) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  // unit testing, compares against CompactPercolation on random grids
+  public static void main(String[] args) throws IOException {
+
+    print("Check a single site grid");
+    try (MappedPercolation single = new MappedPercolation(1)) {
+      assert (!single.percolates());
+      single.open(1, 1);
+      assert (single.isFull(1, 1));
+      assert (single.percolates());
+    }
+    print("Passed");
+
+    print("Check against CompactPercolation on random grids");
+    for (int N = 2; N <= 40; N++) {
+      CompactPercolation expected = new CompactPercolation(N);
+      try (MappedPercolation actual = new MappedPercolation(N)) {
+        while (!actual.percolates()) {
+          int x = StdRandom.uniform(1, N + 1);
+          int y = StdRandom.uniform(1, N + 1);
+          expected.open(x, y);
+          actual.open(x, y);
+          assert (expected.percolates() == actual.percolates());
+        }
+        for (int i = 1; i <= N; i++) {
+          for (int j = 1; j <= N; j++) {
+            assert (expected.isOpen(i, j) == actual.isOpen(i, j));
+            assert (expected.isFull(i, j) == actual.isFull(i, j));
+          }
+        }
+      }
+    }
+    print("Passed");
+
+    print("Check that the temporary file is removed");
+    MappedPercolation temporary = new MappedPercolation(10);
+    Path path = temporary.file;
+    assert (Files.exists(path));
+    temporary.close();
+    assert (!Files.exists(path));
+    print("Passed");
+
+    print("Check that a grid too large for the file fails cleanly");
+    Path directory = path.getParent();
+    int files = temporaryFiles(directory);
+    for (int N : new int[] { 0, 1 << 29, 1 << 30, Integer.MAX_VALUE }) {
+      try {
+        new MappedPercolation(N);
+        assert (false);
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+    assert (temporaryFiles(directory) == files);
+    print("Passed");
+
+    print("Operations Successful");
+  }
+}
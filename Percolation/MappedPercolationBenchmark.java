@@ -0,0 +1,45 @@
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+public class MappedPercolationBenchmark {
+
+  private static final long SEED = 20150101L;
+
+  // usage: java MappedPercolationBenchmark [N]
+  // Opens the same random sites one at a time on the heap grid and the
+  // memory mapped grid until each percolates and prints the throughput.
+  public static void main(String[] args) throws IOException {
+
+    int N = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+    SplittableRandom random = new SplittableRandom(SEED);
+    long start = System.nanoTime();
+    long opens = 0;
+    CompactPercolation heap = new CompactPercolation(N);
+    while (!heap.percolates()) {
+      heap.open(random.nextInt(1, N + 1), random.nextInt(1, N + 1));
+      opens++;
+    }
+    long heapTime = System.nanoTime() - start;
+
+    random = new SplittableRandom(SEED);
+    start = System.nanoTime();
+    long mappedOpens = 0;
+    try (MappedPercolation mapped = new MappedPercolation(N)) {
+      while (!mapped.percolates()) {
+        mapped.open(random.nextInt(1, N + 1), random.nextInt(1, N + 1));
+        mappedOpens++;
+      }
+    }
+    long mappedTime = System.nanoTime() - start;
+
+    // Both draw the same sites so both percolate at the same open
+    assert (opens == mappedOpens);
+
+    System.out.printf("N = %d, %d open calls%n", N, opens);
+    System.out.printf("CompactPercolation  %9.1f ms  %6.2f M opens/s%n",
+                      heapTime / 1e6, opens * 1e3 / heapTime);
+    System.out.printf("MappedPercolation   %9.1f ms  %6.2f M opens/s%n",
+                      mappedTime / 1e6, mappedOpens * 1e3 / mappedTime);
+  }
+}
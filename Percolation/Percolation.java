@@ -1,8 +1,10 @@
+import java.util.Arrays;
+
 public class Percolation {
 
   private boolean[][] grid;
-  private WeightedQuickUnionUF unionFind;
-  private WeightedQuickUnionUF unionFindSECOND;
+  private GridUnionFind unionFind;
+  private GridUnionFind unionFindSECOND;
   private int GRID_SIZE;
   private int UF_BOTTOM;
   private int UF_TOP;
@@ -15,8 +17,8 @@ public class Percolation {
     // for a virtual top and virtual bottom
     // Nth element of unionFind will be the bottom
     // Nth + 1 element of unionFind will be the top
-    unionFind = new WeightedQuickUnionUF(N * N + 1);
-    unionFindSECOND = new WeightedQuickUnionUF(N * N + 2);
+    unionFind = new GridUnionFind(N, 1);
+    unionFindSECOND = new GridUnionFind(N, 2);
     UF_BOTTOM = N * N + 1;
     UF_TOP = N * N;
 
@@ -35,6 +37,16 @@ public class Percolation {
     }
   }
 
+  // block every site again without allocating a new grid
+  public void reset() {
+
+    for (int i = 1; i <= GRID_SIZE; i++) {
+      Arrays.fill(grid[i], false);
+    }
+    unionFind.reset();
+    unionFindSECOND.reset();
+  }
+
   // open site (row i, column j) if it is not open already
   public void open(int i, int j) {
 
@@ -0,0 +1,17 @@
+// Receives the events of a CompactPercolation as sites are opened.
+// Every event names the site (row i, column j) whose opening caused it.
+public interface PercolationListener {
+
+  // two clusters with the given sizes were joined into one
+  default void merged(int i, int j, int firstSize, int secondSize) {
+  }
+
+  // sites became full for the first time, count of them
+  // including (i, j) itself
+  default void full(int i, int j, int count) {
+  }
+
+  // the system percolates for the first time
+  default void percolated(int i, int j) {
+  }
+}
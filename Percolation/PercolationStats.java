@@ -1,7 +1,26 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 public class PercolationStats {
 
+  // How a trial picks the next site to open
+  public enum Strategy {
+    // draw random sites and skip the ones that are already open
+    REJECTION,
+    // walk a random permutation of the sites, every draw opens a site.
+    // PercolationSweep runs it on raw site indices without allocating.
+    SHUFFLE
+  }
+
+  // Trials to run before the confidence interval may stop a run early
+  private static final int MIN_TRIALS = 30;
+
   private int TEST_SIZE;
   private double[] openSites;
+  private RunningStats stats = new RunningStats();
+  private long randomDraws;
 
   public PercolationStats(int N, int T) {
 
@@ -14,14 +33,14 @@ public class PercolationStats {
     int site = 0;
     int openSiteCount = 0;
     int TOTAL_GRIDS = N * N;
-    Percolation tests = null;
+    Percolation tests = new Percolation(N);
 
-    // Run T amount of tests
+    // Run T amount of tests, reusing the same grid for all of them
     for (int i = 0; i < T; i++) {
       site = 0;
       openSiteCount = 0;
 
-      tests = new Percolation(N);
+      if (i > 0) tests.reset();
 
       while (!tests.percolates() && site < TOTAL_GRIDS) {
 
@@ -36,39 +55,272 @@ public class PercolationStats {
       }
 
       openSites[i] = (double) openSiteCount / TOTAL_GRIDS;
-      tests = null;
+      stats.add(openSites[i]);
+    }
+
+  }
+
+  // Run the T trials on parallelism threads. Every thread gets its own
+  // block of trials and its own random stream split off from seed, so the
+  // same seed and parallelism always give the same results.
+  public PercolationStats(int N, int T, long seed, int parallelism) {
+    this(N, T, seed, parallelism, Strategy.REJECTION);
+  }
+
+  public PercolationStats(int N, int T, long seed, int parallelism,
+                          Strategy strategy) {
+
+    if (N <= 0 || T <= 0 || parallelism <= 0 || strategy == null) {
+      throw new IllegalArgumentException();
+    }
+
+    openSites = new double[T];
+
+    TEST_SIZE = T;
+
+    Worker[] workers = workers(N, Math.min(parallelism, T), seed, strategy);
+    ForkJoinPool pool = new ForkJoinPool(workers.length);
+
+    try {
+      // Every worker runs one contiguous block of the trials
+      for (int w = 0; w < workers.length; w++) {
+        int from = (int) ((long) T * w / workers.length);
+        int to = (int) ((long) T * (w + 1) / workers.length);
+        workers[w].assign(openSites, from, to);
+      }
+      runAll(pool, workers);
+    } finally {
+      pool.shutdown();
+    }
+
+    for (Worker worker : workers) {
+      randomDraws += worker.randomDraws;
+    }
+    for (double fraction : openSites) {
+      stats.add(fraction);
+    }
+  }
+
+  // Keep running trials until the 95% confidence interval is narrower
+  // than epsilon on both sides of the mean, or until maxTrials trials or
+  // maxMillis milliseconds are used up. Only running sums are kept, the
+  // individual results are not stored. Each round runs one trial on every
+  // worker and adds the results in worker order, so a fixed seed and
+  // parallelism still give the same results.
+  public PercolationStats(int N, double epsilon, int maxTrials,
+                          long maxMillis, long seed, int parallelism,
+                          Strategy strategy) {
+
+    if (N <= 0 || !(epsilon > 0) || maxTrials <= 0 || maxMillis <= 0
+        || parallelism <= 0 || strategy == null) {
+      throw new IllegalArgumentException();
+    }
+
+    long deadline = System.nanoTime() + maxMillis * 1000000L;
+    Worker[] workers = workers(N, parallelism, seed, strategy);
+    double[] round = new double[workers.length];
+    ForkJoinPool pool = new ForkJoinPool(workers.length);
+
+    try {
+      while (stats.count() < maxTrials) {
+        int size = (int) Math.min(workers.length, maxTrials - stats.count());
+        for (int w = 0; w < size; w++) {
+          workers[w].assign(round, w, w + 1);
+        }
+        runAll(pool, Arrays.copyOf(workers, size));
+
+        for (int w = 0; w < size; w++) {
+          stats.add(round[w]);
+        }
+
+        if (stats.count() >= MIN_TRIALS && stats.halfWidth() < epsilon) break;
+        if (System.nanoTime() - deadline >= 0) break;
+      }
+    } finally {
+      pool.shutdown();
     }
 
+    for (Worker worker : workers) {
+      randomDraws += worker.randomDraws;
+    }
+
+    TEST_SIZE = (int) stats.count();
+  }
+
+  // Split the random streams on this thread in worker order,
+  // the order the pool runs the workers in does not matter then
+  private static Worker[] workers(int N, int count, long seed,
+                                  Strategy strategy) {
+
+    SplittableRandom random = new SplittableRandom(seed);
+    Worker[] workers = new Worker[count];
+
+    for (int w = 0; w < count; w++) {
+      workers[w] = new Worker(N, strategy, random.split());
+    }
+    return workers;
+  }
+
+  private void runAll(ForkJoinPool pool, Worker[] workers) {
+
+    ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[workers.length];
+
+    for (int w = 0; w < workers.length; w++) {
+      tasks[w] = pool.submit(workers[w]);
+    }
+    for (int w = 0; w < workers.length; w++) {
+      tasks[w].join();
+    }
+  }
+
+  // Runs trials with its own random stream, keeping its grid
+  // between trials. run() fills results from (inclusive)
+  // to to (exclusive).
+  private static class Worker implements Runnable {
+
+    private final int N;
+    private final Strategy strategy;
+    private final SplittableRandom random;
+    private CompactPercolation tests;
+    private PercolationSweep sweep;
+    private double[] results;
+    private int from;
+    private int to;
+    private long randomDraws;
+
+    public Worker(int N, Strategy strategy, SplittableRandom random) {
+      this.N = N;
+      this.strategy = strategy;
+      this.random = random;
+    }
+
+    public void assign(double[] results, int from, int to) {
+      this.results = results;
+      this.from = from;
+      this.to = to;
+    }
+
+    public void run() {
+      for (int i = from; i < to; i++) {
+        results[i] = trial();
+      }
+    }
+
+    // fraction of open sites when one random grid percolates
+    private double trial() {
+
+      int TOTAL_GRIDS = N * N;
+      int openSiteCount = 0;
+
+      if (strategy == Strategy.SHUFFLE) {
+        if (sweep == null) sweep = new PercolationSweep(N);
+        double fraction = sweep.threshold(random);
+        randomDraws += Math.round(fraction * TOTAL_GRIDS);
+        return fraction;
+      }
+
+      // One grid per worker, reset between trials
+      if (tests == null) {
+        tests = new CompactPercolation(N);
+      } else {
+        tests.reset();
+      }
+
+      while (!tests.percolates()) {
+
+        int x = random.nextInt(1, N + 1);
+        int y = random.nextInt(1, N + 1);
+        randomDraws += 2;
+
+        if (!tests.isOpen(x, y)) {
+          tests.open(x, y);
+          openSiteCount += 1;
+        }
+      }
+
+      return (double) openSiteCount / TOTAL_GRIDS;
+    }
+  }
+
+  // number of random numbers drawn by the seeded trials
+  public long randomDraws() {
+    return randomDraws;
+  }
+
+  // number of trials that were run
+  public int trials() {
+    return TEST_SIZE;
   }
 
   public double mean() {
-    return StdStats.mean(openSites);
+    return stats.mean();
   }
 
   public double stddev() {
-    return StdStats.stddev(openSites);
+    return stats.stddev();
   }
 
   public double confidenceLo() {
-    return (StdStats.mean(openSites)
-      - ((1.96 * StdStats.stddev(openSites)) / Math.sqrt((double) TEST_SIZE)));
+    return stats.mean() - stats.halfWidth();
   }
 
   public double confidenceHi() {
-
-    return (StdStats.mean(openSites)
-      + ((1.96 * StdStats.stddev(openSites)) / Math.sqrt((double) TEST_SIZE)));
+    return stats.mean() + stats.halfWidth();
   }
 
   public static void main(String[] args) {
 
-    PercolationStats stats = new PercolationStats(Integer.parseInt(args[0]),
-                                                  Integer.parseInt(args[1]));
+    int N = Integer.parseInt(args[0]);
+    PercolationStats stats;
+    long start = System.nanoTime();
+
+    // -eps gives a target half-width instead of T:
+    // N -eps epsilon maxTrials maxSeconds seed parallelism [strategy]
+    if (args[1].equals("-eps")) {
+      if (args.length < 7) {
+        throw new IllegalArgumentException("usage: PercolationStats N -eps"
+                                           + " epsilon maxTrials maxSeconds"
+                                           + " seed parallelism [strategy]");
+      }
+      Strategy strategy = Strategy.REJECTION;
+      if (args.length >= 8) {
+        strategy = Strategy.valueOf(args[7].toUpperCase());
+      }
+      stats = new PercolationStats(N, Double.parseDouble(args[2]),
+                                   Integer.parseInt(args[3]),
+                                   Long.parseLong(args[4]) * 1000,
+                                   Long.parseLong(args[5]),
+                                   Integer.parseInt(args[6]), strategy);
+    }
+    // Optional seed and parallelism select the parallel trials,
+    // followed by an optional strategy: rejection or shuffle
+    else if (args.length >= 4) {
+      Strategy strategy = Strategy.REJECTION;
+      if (args.length >= 5) {
+        strategy = Strategy.valueOf(args[4].toUpperCase());
+      }
+      stats = new PercolationStats(N, Integer.parseInt(args[1]),
+                                   Long.parseLong(args[2]),
+                                   Integer.parseInt(args[3]), strategy);
+    } else {
+      stats = new PercolationStats(N, Integer.parseInt(args[1]));
+    }
+
+    int T = stats.trials();
+
+    long elapsed = System.nanoTime() - start;
 
     System.out.println("mean                    = " + stats.mean());
     System.out.println("stddev                  = " + stats.stddev());
     System.out.println("95% confidence interval = "
                         + stats.confidenceLo() + ", " + stats.confidenceHi());
+
+    if (args.length >= 4) {
+      System.out.println("trials                  = " + T);
+      System.out.println("random draws per trial  = "
+                          + (double) stats.randomDraws() / T);
+      System.out.println("ms per trial            = " + elapsed / 1e6 / T);
+    }
   }
 
 }
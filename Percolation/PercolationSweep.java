@@ -0,0 +1,82 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class PercolationSweep {
+
+  private static final int TOP = 1;
+  private static final int BOTTOM = 2;
+
+  private GridUnionFind unionFind;
+  private SitePermutation openTimes;
+  private long[] grid;
+  private int GRID_SIZE;
+
+  // Estimates the percolation threshold of an N by N grid. All state
+  // is allocated once here and reused by every call to threshold.
+  public PercolationSweep(int N) {
+
+    if (N <= 0 || N > 46340) throw new IllegalArgumentException();
+
+    unionFind = new GridUnionFind(N);
+    openTimes = new SitePermutation(N * N);
+    grid = new long[(N * N + 63) >>> 6];
+    GRID_SIZE = N;
+  }
+
+  // fraction of open sites at the moment the system percolates.
+  // Every site gets a random open time, the k-th site of a random
+  // permutation opens at time k, and the sites are swept in time order
+  // like the edges in Kruskal's algorithm until top and bottom meet.
+  // That is the shuffle estimator of PercolationStats, with the same
+  // draws, on raw site indices and without allocating.
+  public double threshold(SplittableRandom random) {
+
+    int TOTAL_GRIDS = GRID_SIZE * GRID_SIZE;
+
+    unionFind.reset();
+    openTimes.restart();
+    Arrays.fill(grid, 0L);
+
+    while (true) {
+      int site = openTimes.next(random);
+      grid[site >>> 6] |= 1L << site;
+
+      if (site < GRID_SIZE) unionFind.mark(site, TOP);
+      if (site >= TOTAL_GRIDS - GRID_SIZE) unionFind.mark(site, BOTTOM);
+
+      int root = unionFind.unionNeighbors(site, grid);
+      if (unionFind.flags(root) == (TOP | BOTTOM)) {
+        return (double) openTimes.position() / TOTAL_GRIDS;
+      }
+    }
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // unit testing
+  public static void main(String[] args) {
+
+    SplittableRandom random = new SplittableRandom(7);
+
+    print("Check a single site grid");
+    PercolationSweep single = new PercolationSweep(1);
+    assert (single.threshold(random) == 1.0);
+    print("Passed");
+
+    print("Check that the threshold is close to 0.593");
+    PercolationSweep sweep = new PercolationSweep(100);
+    double sum = 0;
+    for (int i = 0; i < 200; i++) {
+      double threshold = sweep.threshold(random);
+      assert (threshold > 0 && threshold <= 1);
+      sum += threshold;
+    }
+    print("\tmean: " + sum / 200);
+    assert (Math.abs(sum / 200 - 0.593) < 0.01);
+    print("Passed");
+
+    print("Operations Successful");
+  }
+}
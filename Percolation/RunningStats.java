@@ -0,0 +1,77 @@
+public class RunningStats {
+
+  private long count;
+  private double mean;
+  private double squares;    // sum of squared distances from the mean
+
+  // add one sample, Welford's update keeps mean and
+  // variance without storing the samples
+  public void add(double x) {
+
+    count++;
+    double delta = x - mean;
+    mean += delta / count;
+    squares += delta * (x - mean);
+  }
+
+  // number of samples added
+  public long count() {
+    return count;
+  }
+
+  public double mean() {
+    if (count == 0) return Double.NaN;
+    return mean;
+  }
+
+  // sample variance, the same as StdStats.var
+  public double var() {
+    if (count < 2) return Double.NaN;
+    return squares / (count - 1);
+  }
+
+  public double stddev() {
+    return Math.sqrt(var());
+  }
+
+  // half the width of the 95% confidence interval for the mean
+  public double halfWidth() {
+    return 1.96 * stddev() / Math.sqrt(count);
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // unit testing
+  public static void main(String[] args) {
+
+    print("Check initialization");
+    RunningStats stats = new RunningStats();
+    assert (stats.count() == 0);
+    assert (Double.isNaN(stats.mean()));
+    assert (Double.isNaN(stats.var()));
+    print("Passed");
+
+    print("Check against StdStats");
+    double[] samples = new double[1000];
+    for (int i = 0; i < samples.length; i++) {
+      samples[i] = 0.59 + StdRandom.uniform() / 100;
+      stats.add(samples[i]);
+    }
+    assert (stats.count() == 1000);
+    assert (Math.abs(stats.mean() - StdStats.mean(samples)) < 1e-12);
+    assert (Math.abs(stats.stddev() - StdStats.stddev(samples)) < 1e-12);
+    print("Passed");
+
+    print("Check that the interval shrinks with more samples");
+    double before = stats.halfWidth();
+    for (int i = 0; i < 3000; i++) {
+      stats.add(0.59 + StdRandom.uniform() / 100);
+    }
+    assert (stats.halfWidth() < before);
+    print("Passed");
+
+    print("Operations Successful");
+  }
+}
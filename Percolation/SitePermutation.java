@@ -0,0 +1,96 @@
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+public class SitePermutation {
+
+  // sites[k] == 0 means position k still holds site k,
+  // otherwise position k holds site sites[k] - 1. This way the
+  // permutation never needs an initialization pass over all sites.
+  private int[] sites;
+  private int position;
+
+  // random permutation of the sites 0 to size - 1
+  public SitePermutation(int size) {
+
+    if (size <= 0) throw new IllegalArgumentException();
+
+    sites = new int[size];
+    position = 0;
+  }
+
+  // number of sites handed out since the last restart
+  public int position() {
+    return position;
+  }
+
+  public boolean hasNext() {
+    return position < sites.length;
+  }
+
+  // next site of the permutation, one step of a Fisher-Yates shuffle
+  public int next(SplittableRandom random) {
+
+    if (!hasNext()) throw new NoSuchElementException();
+
+    int swap = position + random.nextInt(sites.length - position);
+    int site = siteAt(swap);
+
+    sites[swap] = siteAt(position) + 1;
+    sites[position] = site + 1;
+    position++;
+    return site;
+  }
+
+  private int siteAt(int k) {
+    return sites[k] == 0 ? k : sites[k] - 1;
+  }
+
+  // start a new permutation. Shuffling the sites left behind by the
+  // previous permutation gives a uniform permutation again, so nothing
+  // has to be cleared.
+  public void restart() {
+    position = 0;
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // unit testing
+  public static void main(String[] args) {
+
+    SplittableRandom random = new SplittableRandom(1);
+
+    print("Check that every site comes out exactly once");
+    SitePermutation permutation = new SitePermutation(1000);
+    for (int round = 0; round < 3; round++) {
+      boolean[] seen = new boolean[1000];
+      permutation.restart();
+      while (permutation.hasNext()) {
+        int site = permutation.next(random);
+        assert (!seen[site]);
+        seen[site] = true;
+      }
+      assert (permutation.position() == 1000);
+      for (boolean s : seen) {
+        assert (s);
+      }
+    }
+    print("Passed");
+
+    print("Check that the first site is uniform");
+    int[] counts = new int[4];
+    SitePermutation small = new SitePermutation(4);
+    for (int i = 0; i < 40000; i++) {
+      small.restart();
+      counts[small.next(random)]++;
+    }
+    for (int count : counts) {
+      print("\t" + count);
+      assert (Math.abs(count - 10000) < 600);
+    }
+    print("Passed");
+
+    print("Operations Successful");
+  }
+}
@@ -0,0 +1,119 @@
+import java.util.SplittableRandom;
+
+public class UnionFindBenchmark {
+
+  private static final long SEED = 20150101L;
+  private static final int RUNS = 3;
+
+  // Open random sites of an N by N grid until the top and bottom rows
+  // are connected, using WeightedQuickUnionUF with virtual top and bottom
+  // sites the same way Percolation originally did.
+  private static int runWeighted(int N) {
+
+    WeightedQuickUnionUF unionFind = new WeightedQuickUnionUF(N * N + 2);
+    long[] open = new long[(N * N + 63) >>> 6];
+    int top = N * N;
+    int bottom = N * N + 1;
+    int opened = 0;
+    SplittableRandom random = new SplittableRandom(SEED);
+
+    while (!unionFind.connected(top, bottom)) {
+      int site = random.nextInt(N * N);
+      if (isOpen(open, site)) continue;
+
+      open[site >>> 6] |= 1L << site;
+      opened++;
+
+      int row = site / N;
+      int column = site % N;
+      if (row == 0) unionFind.union(site, top);
+      if (row == N - 1) unionFind.union(site, bottom);
+      if (column != 0 && isOpen(open, site - 1)) {
+        unionFind.union(site, site - 1);
+      }
+      if (column != N - 1 && isOpen(open, site + 1)) {
+        unionFind.union(site, site + 1);
+      }
+      if (row != 0 && isOpen(open, site - N)) {
+        unionFind.union(site, site - N);
+      }
+      if (row != N - 1 && isOpen(open, site + N)) {
+        unionFind.union(site, site + N);
+      }
+    }
+    return opened;
+  }
+
+  // The same workload with GridUnionFind, top and bottom are root flags
+  private static int runGrid(int N) {
+
+    GridUnionFind unionFind = new GridUnionFind(N);
+    long[] open = new long[(N * N + 63) >>> 6];
+    int opened = 0;
+    int root = 0;
+    SplittableRandom random = new SplittableRandom(SEED);
+
+    while (unionFind.flags(root) != 3) {
+      int site = random.nextInt(N * N);
+      if (isOpen(open, site)) continue;
+
+      open[site >>> 6] |= 1L << site;
+      opened++;
+
+      int row = site / N;
+      if (row == 0) unionFind.mark(site, 1);
+      if (row == N - 1) unionFind.mark(site, 2);
+      root = unionFind.unionNeighbors(site, open);
+    }
+    return opened;
+  }
+
+  private static boolean isOpen(long[] open, int site) {
+    return (open[site >>> 6] & (1L << site)) != 0;
+  }
+
+  // usage: java UnionFindBenchmark [N ...]
+  public static void main(String[] args) {
+
+    int[] sizes = { 1000, 4000, 16000 };
+    if (args.length > 0) {
+      sizes = new int[args.length];
+      for (int i = 0; i < args.length; i++) {
+        sizes[i] = Integer.parseInt(args[i]);
+      }
+    }
+
+    // Warm up both paths before timing anything
+    for (int i = 0; i < 5; i++) {
+      runWeighted(200);
+      runGrid(200);
+    }
+
+    for (int N : sizes) {
+      long weighted = Long.MAX_VALUE;
+      long grid = Long.MAX_VALUE;
+      int weightedOpened = 0;
+      int gridOpened = 0;
+
+      // Keep the best of a few alternating runs so that a single
+      // noisy run does not decide the comparison
+      for (int run = 0; run < RUNS; run++) {
+        long start = System.nanoTime();
+        weightedOpened = runWeighted(N);
+        weighted = Math.min(weighted, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        gridOpened = runGrid(N);
+        grid = Math.min(grid, System.nanoTime() - start);
+      }
+
+      // Both runs draw the same random sites so they must agree
+      assert (weightedOpened == gridOpened);
+
+      System.out.printf("N = %-6d WeightedQuickUnionUF %8.1f ms   "
+                        + "GridUnionFind %8.1f ms   speedup %.2fx%n",
+                        N, weighted / 1e6, grid / 1e6,
+                        (double) weighted / grid);
+    }
+  }
+}
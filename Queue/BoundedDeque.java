@@ -0,0 +1,398 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class BoundedDeque<Item> {
+
+  private final RingDeque<Item> items = new RingDeque<Item>();
+  private final int capacity;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+
+  // metrics, guarded by lock
+  private int maxSize;
+  private long producerWaits;
+  private long producerWaitNanos;
+  private long consumerWaits;
+  private long consumerWaitNanos;
+
+  // Deque for producer and consumer threads that holds at most capacity
+  // items. Producers wait while it is full and consumers while it is
+  // empty, each for at most the time they ask for. One lock guards it,
+  // addAll and drainTo take it once for a whole batch.
+  public BoundedDeque(int capacity) {
+    if (capacity <= 0) throw new IllegalArgumentException();
+    this.capacity = capacity;
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  // is the deque empty?
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  // return the number of items on the deque
+  public int size() {
+    lock.lock();
+    try {
+      return items.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // add the item to the front, waiting up to timeout for room,
+  // and return whether it was added
+  public boolean offerFirst(Item item, long timeout, TimeUnit unit)
+    throws InterruptedException {
+    return offer(item, true, unit.toNanos(timeout));
+  }
+
+  // add the item to the end, waiting up to timeout for room,
+  // and return whether it was added
+  public boolean offerLast(Item item, long timeout, TimeUnit unit)
+    throws InterruptedException {
+    return offer(item, false, unit.toNanos(timeout));
+  }
+
+  private boolean offer(Item item, boolean first, long nanos)
+    throws InterruptedException {
+
+    if (item == null) throw new NullPointerException();
+
+    lock.lockInterruptibly();
+    try {
+      if (!awaitRoom(nanos)) return false;
+      if (first) {
+        items.addFirst(item);
+      } else {
+        items.addLast(item);
+      }
+      added(false);
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // remove and return the item from the front, waiting up to
+  // timeout for one, or null if there was none
+  public Item pollFirst(long timeout, TimeUnit unit)
+    throws InterruptedException {
+    return poll(true, unit.toNanos(timeout));
+  }
+
+  // remove and return the item from the end, waiting up to
+  // timeout for one, or null if there was none
+  public Item pollLast(long timeout, TimeUnit unit)
+    throws InterruptedException {
+    return poll(false, unit.toNanos(timeout));
+  }
+
+  private Item poll(boolean first, long nanos) throws InterruptedException {
+
+    lock.lockInterruptibly();
+    try {
+      if (!awaitItems(nanos)) return null;
+      Item item = first ? items.removeFirst() : items.removeLast();
+      notFull.signal();
+      return item;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Add the items of batch to the end in order, waiting up to timeout
+  // whenever the deque is full, and return how many were added. The
+  // lock is taken once, and again only after waiting for room.
+  public int addAll(Collection<? extends Item> batch, long timeout,
+                    TimeUnit unit) throws InterruptedException {
+
+    for (Item item : batch) {
+      if (item == null) throw new NullPointerException();
+    }
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    int count = 0;
+
+    lock.lockInterruptibly();
+    try {
+      for (Item item : batch) {
+        if (!awaitRoom(deadline - System.nanoTime())) break;
+        items.addLast(item);
+        count++;
+      }
+      if (count > 0) added(true);
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Move up to max items from the front to collection, without
+  // waiting, and return how many were moved
+  public int drainTo(Collection<? super Item> collection, int max) {
+
+    if (collection == null) throw new NullPointerException();
+    if (max < 0) throw new IllegalArgumentException();
+
+    lock.lock();
+    try {
+      int count = Math.min(max, items.size());
+      for (int k = 0; k < count; k++) {
+        collection.add(items.removeFirst());
+      }
+      if (count > 0) notFull.signalAll();
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Wait until there is room for an item or nanos have passed,
+  // with the lock held, and return whether there is room
+  private boolean awaitRoom(long nanos) throws InterruptedException {
+
+    if (items.size() < capacity) return true;
+    if (nanos <= 0) return false;
+
+    // A batch may have filled the deque, its items have to reach
+    // the consumers before anyone can wait for them to make room
+    added(true);
+
+    long start = System.nanoTime();
+    producerWaits++;
+    while (items.size() == capacity && nanos > 0) {
+      nanos = notFull.awaitNanos(nanos);
+    }
+    producerWaitNanos += System.nanoTime() - start;
+    return items.size() < capacity;
+  }
+
+  private boolean awaitItems(long nanos) throws InterruptedException {
+
+    if (!items.isEmpty()) return true;
+    if (nanos <= 0) return false;
+
+    long start = System.nanoTime();
+    consumerWaits++;
+    while (items.isEmpty() && nanos > 0) {
+      nanos = notEmpty.awaitNanos(nanos);
+    }
+    consumerWaitNanos += System.nanoTime() - start;
+    return !items.isEmpty();
+  }
+
+  // After items were added, with the lock held. One item can only
+  // serve one consumer, so only a batch wakes all of them.
+  private void added(boolean batch) {
+    maxSize = Math.max(maxSize, items.size());
+    if (batch) {
+      notEmpty.signalAll();
+    } else {
+      notEmpty.signal();
+    }
+  }
+
+  // the most items the deque has held at once
+  public int maxSize() {
+    lock.lock();
+    try {
+      return maxSize;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // how often producers had to wait for room, and for how long
+  // in total
+  public long producerWaits() {
+    lock.lock();
+    try {
+      return producerWaits;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long producerWaitNanos() {
+    lock.lock();
+    try {
+      return producerWaitNanos;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // how often consumers had to wait for items, and for how long
+  // in total
+  public long consumerWaits() {
+    lock.lock();
+    try {
+      return consumerWaits;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long consumerWaitNanos() {
+    lock.lock();
+    try {
+      return consumerWaitNanos;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // unit testing, then producers and consumers through a small deque
+  public static void main(String[] args) throws InterruptedException {
+
+    BoundedDeque<Integer> d = new BoundedDeque<Integer>(4);
+
+    print("Initialization was correct");
+    assert (d.isEmpty());
+    assert (d.size() == 0);
+    assert (d.capacity() == 4);
+    assert (d.pollFirst(0, TimeUnit.SECONDS) == null);
+    print("Passed");
+
+    print("Check both ends and the capacity");
+    assert (d.offerLast(2, 0, TimeUnit.SECONDS));
+    assert (d.offerFirst(1, 0, TimeUnit.SECONDS));
+    assert (d.offerLast(3, 0, TimeUnit.SECONDS));
+    assert (d.offerLast(4, 0, TimeUnit.SECONDS));
+    assert (!d.offerLast(5, 0, TimeUnit.SECONDS));
+    assert (d.size() == 4);
+    assert (d.pollLast(0, TimeUnit.SECONDS) == 4);
+    assert (d.pollFirst(0, TimeUnit.SECONDS) == 1);
+    print("Passed");
+
+    print("Check that timed operations wait and give up");
+    long start = System.nanoTime();
+    assert (d.offerLast(4, 0, TimeUnit.SECONDS));
+    assert (d.offerLast(5, 0, TimeUnit.SECONDS));
+    assert (!d.offerLast(6, 50, TimeUnit.MILLISECONDS));
+    assert (System.nanoTime() - start >= 50000000L);
+    assert (d.producerWaits() == 1);
+    assert (d.producerWaitNanos() >= 50000000L);
+    assert (d.maxSize() == 4);
+    print("Passed");
+
+    print("Check batches");
+    List<Integer> drained = new ArrayList<Integer>();
+    assert (d.drainTo(drained, 3) == 3);
+    assert (drained.toString().equals("[2, 3, 4]"));
+    List<Integer> batch = new ArrayList<Integer>();
+    for (int i = 6; i < 10; i++) {
+      batch.add(i);
+    }
+    assert (d.addAll(batch, 10, TimeUnit.MILLISECONDS) == 3);
+    assert (d.drainTo(drained, 100) == 4);
+    assert (drained.toString().equals("[2, 3, 4, 5, 6, 7, 8]"));
+    assert (d.isEmpty());
+    assert (d.drainTo(drained, 0) == 0);
+    try {
+      d.drainTo(drained, -1);
+      assert (false);
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    print("Passed");
+
+    print("Check that items pass producers and consumers exactly once");
+    stress(new BoundedDeque<Integer>(16), 4, 200000);
+    print("Passed");
+
+    print("Operations Successful");
+  }
+
+  // Producers add their share of N items one by one or in batches,
+  // consumers take them one by one or drain them, until all came out
+  private static void stress(final BoundedDeque<Integer> d, int threads,
+                             final int N) throws InterruptedException {
+
+    final int[] taken = new int[N];
+    final int[] count = new int[1];
+    Thread[] workers = new Thread[2 * threads];
+
+    for (int k = 0; k < threads; k++) {
+      final int producer = k;
+      final int producers = threads;
+      workers[k] = new Thread() {
+        public void run() {
+          List<Integer> batch = new ArrayList<Integer>();
+          try {
+            for (int i = producer; i < N; i += producers) {
+              if (producer % 2 == 0) {
+                while (!d.offerLast(i, 1, TimeUnit.SECONDS)) { }
+              } else {
+                batch.add(i);
+                if (batch.size() == 8 || i + producers >= N) {
+                  int added = 0;
+                  while (added < batch.size()) {
+                    added += d.addAll(batch.subList(added, batch.size()),
+                                      1, TimeUnit.SECONDS);
+                  }
+                  batch.clear();
+                }
+              }
+            }
+          } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      };
+      final int consumer = k;
+      workers[threads + k] = new Thread() {
+        public void run() {
+          List<Integer> drained = new ArrayList<Integer>();
+          try {
+            while (true) {
+              synchronized (count) {
+                if (count[0] == N) return;
+              }
+              drained.clear();
+              if (consumer % 2 == 0) {
+                Integer item = d.pollFirst(1, TimeUnit.MILLISECONDS);
+                if (item != null) drained.add(item);
+              } else {
+                d.drainTo(drained, 8);
+              }
+              synchronized (count) {
+                for (int item : drained) {
+                  taken[item]++;
+                }
+                count[0] += drained.size();
+              }
+            }
+          } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      };
+    }
+    for (Thread worker : workers) {
+      worker.start();
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    assert (d.isEmpty());
+    assert (d.maxSize() <= d.capacity());
+    for (int i = 0; i < N; i++) {
+      assert (taken[i] == 1);
+    }
+  }
+}
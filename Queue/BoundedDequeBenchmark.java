@@ -0,0 +1,103 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class BoundedDequeBenchmark {
+
+  private static final int RUNS = 5;
+
+  // usage: java BoundedDequeBenchmark [N] [capacity] [batch]
+  // One producer hands N items to one consumer through a BoundedDeque,
+  // item by item with offerLast and pollFirst, then in batches with
+  // addAll and drainTo, and reports the time per item and how long
+  // each side waited on the other
+  public static void main(String[] args) throws InterruptedException {
+
+    int N = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+    int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+    int batch = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+    Integer[] items = new Integer[N];
+    for (int i = 0; i < N; i++) {
+      items[i] = i;
+    }
+
+    for (int run = 0; run < RUNS; run++) {
+      run("one by one", items, capacity, 1);
+      run("batch " + batch, items, capacity, batch);
+    }
+  }
+
+  private static void run(String name, final Integer[] items,
+                          final int capacity,
+                          final int batch) throws InterruptedException {
+
+    final BoundedDeque<Integer> d = new BoundedDeque<Integer>(capacity);
+    final int N = items.length;
+    final long[] sum = new long[1];
+
+    Thread producer = new Thread() {
+      public void run() {
+        try {
+          List<Integer> chunk = new ArrayList<Integer>(batch);
+          for (int i = 0; i < N; i++) {
+            if (batch == 1) {
+              d.offerLast(items[i], 1, TimeUnit.MINUTES);
+              continue;
+            }
+            chunk.add(items[i]);
+            if (chunk.size() == batch || i == N - 1) {
+              d.addAll(chunk, 1, TimeUnit.MINUTES);
+              chunk.clear();
+            }
+          }
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    };
+    Thread consumer = new Thread() {
+      public void run() {
+        try {
+          List<Integer> chunk = new ArrayList<Integer>(batch);
+          long total = 0;
+          int count = 0;
+          while (count < N) {
+            if (batch == 1) {
+              total += d.pollFirst(1, TimeUnit.MINUTES);
+              count++;
+              continue;
+            }
+            chunk.clear();
+            if (d.drainTo(chunk, capacity) == 0) {
+              // Nothing there, wait for the next item like a
+              // consumer that blocks
+              chunk.add(d.pollFirst(1, TimeUnit.MINUTES));
+            }
+            for (int item : chunk) {
+              total += item;
+            }
+            count += chunk.size();
+          }
+          sum[0] = total;
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    };
+
+    long start = System.nanoTime();
+    producer.start();
+    consumer.start();
+    producer.join();
+    consumer.join();
+    long time = System.nanoTime() - start;
+
+    assert (sum[0] == (long) N * (N - 1) / 2);
+    System.out.printf("%-12s %6.1f ns/item, max depth %5d, producer waited"
+                      + " %6d times %6.1f ms, consumer %6d times %6.1f ms%n",
+                      name, time / (double) N, d.maxSize(),
+                      d.producerWaits(), d.producerWaitNanos() / 1e6,
+                      d.consumerWaits(), d.consumerWaitNanos() / 1e6);
+  }
+}
@@ -0,0 +1,347 @@
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+public class ConcurrentDeque<Item> {
+
+  private static final int STABLE = 0;
+  private static final int PUSH_FIRST = 1;     // first.next.prev not set yet
+  private static final int PUSH_LAST = 2;      // last.prev.next not set yet
+
+  // Raw because Node.class can only be the raw Node
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+    AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<Node, Node> PREV =
+    AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "prev");
+
+  private final AtomicReference<Anchor<Item>> anchor =
+    new AtomicReference<Anchor<Item>>(new Anchor<Item>(null, null, STABLE, 0));
+
+  // Lock free deque for any number of threads on both ends, after
+  // Michael, "CAS-based lock-free algorithm for shared deques" (2003).
+  // The first and last node, the size and whether a link still has to
+  // be fixed live in one immutable anchor that every operation replaces
+  // with a single compare-and-set. A push leaves one link of the old end
+  // node pointing the wrong way, any thread that finds the anchor in that
+  // state fixes it before it goes on, so no thread ever waits on another.
+  public ConcurrentDeque() {
+  }
+
+  private static final class Node<Item> {
+
+    private Item item;
+    private volatile Node<Item> next;
+    private volatile Node<Item> prev;
+
+    Node(Item item) {
+      this.item = item;
+    }
+  }
+
+  private static final class Anchor<Item> {
+
+    private final Node<Item> first;
+    private final Node<Item> last;
+    private final int status;
+    private final int size;
+
+    Anchor(Node<Item> first, Node<Item> last, int status, int size) {
+      this.first = first;
+      this.last = last;
+      this.status = status;
+      this.size = size;
+    }
+  }
+
+  // is the deque empty?
+  public boolean isEmpty() {
+    return anchor.get().size == 0;
+  }
+
+  // return the number of items on the deque
+  public int size() {
+    return anchor.get().size;
+  }
+
+  // add the item to the front
+  public void addFirst(Item item) {
+
+    if (item == null) throw new NullPointerException();
+
+    Node<Item> node = new Node<Item>(item);
+    while (true) {
+      Anchor<Item> a = anchor.get();
+      if (a.first == null) {
+        if (anchor.compareAndSet(a, new Anchor<Item>(node, node, STABLE, 1))) {
+          return;
+        }
+      } else if (a.status == STABLE) {
+        node.next = a.first;
+        Anchor<Item> pushed =
+          new Anchor<Item>(node, a.last, PUSH_FIRST, a.size + 1);
+        if (anchor.compareAndSet(a, pushed)) {
+          stabilizeFirst(pushed);
+          return;
+        }
+      } else {
+        stabilize(a);
+      }
+    }
+  }
+
+  // add the item to the end
+  public void addLast(Item item) {
+
+    if (item == null) throw new NullPointerException();
+
+    Node<Item> node = new Node<Item>(item);
+    while (true) {
+      Anchor<Item> a = anchor.get();
+      if (a.last == null) {
+        if (anchor.compareAndSet(a, new Anchor<Item>(node, node, STABLE, 1))) {
+          return;
+        }
+      } else if (a.status == STABLE) {
+        node.prev = a.last;
+        Anchor<Item> pushed =
+          new Anchor<Item>(a.first, node, PUSH_LAST, a.size + 1);
+        if (anchor.compareAndSet(a, pushed)) {
+          stabilizeLast(pushed);
+          return;
+        }
+      } else {
+        stabilize(a);
+      }
+    }
+  }
+
+  // remove and return the item from the front, or null if the deque
+  // is empty
+  public Item removeFirst() {
+
+    while (true) {
+      Anchor<Item> a = anchor.get();
+      if (a.first == null) return null;
+
+      if (a.first == a.last) {
+        if (anchor.compareAndSet(a, new Anchor<Item>(null, null, STABLE, 0))) {
+          return take(a.first);
+        }
+      } else if (a.status == STABLE) {
+        // All links are right while the anchor is stable
+        Anchor<Item> popped =
+          new Anchor<Item>(a.first.next, a.last, STABLE, a.size - 1);
+        if (anchor.compareAndSet(a, popped)) return take(a.first);
+      } else {
+        stabilize(a);
+      }
+    }
+  }
+
+  // remove and return the item from the end, or null if the deque
+  // is empty
+  public Item removeLast() {
+
+    while (true) {
+      Anchor<Item> a = anchor.get();
+      if (a.last == null) return null;
+
+      if (a.first == a.last) {
+        if (anchor.compareAndSet(a, new Anchor<Item>(null, null, STABLE, 0))) {
+          return take(a.last);
+        }
+      } else if (a.status == STABLE) {
+        Anchor<Item> popped =
+          new Anchor<Item>(a.first, a.last.prev, STABLE, a.size - 1);
+        if (anchor.compareAndSet(a, popped)) return take(a.last);
+      } else {
+        stabilize(a);
+      }
+    }
+  }
+
+  // Only the thread whose compare-and-set removed the node gets here.
+  // A stale anchor may still name the node, but a thread reads its
+  // links only while the anchor is current, so clearing them is safe
+  // and removed nodes do not keep each other alive in a chain.
+  private Item take(Node<Item> node) {
+    Item item = node.item;
+    node.item = null;
+    node.next = null;
+    node.prev = null;
+    return item;
+  }
+
+  private void stabilize(Anchor<Item> a) {
+    if (a.status == PUSH_FIRST) {
+      stabilizeFirst(a);
+    } else {
+      stabilizeLast(a);
+    }
+  }
+
+  // Point the old first node back at the new one, then mark the
+  // anchor stable. Every step gives up once the anchor changed,
+  // some other thread finished the job then.
+  private void stabilizeFirst(Anchor<Item> a) {
+
+    Node<Item> next = a.first.next;
+    if (anchor.get() != a) return;
+
+    Node<Item> nextPrev = next.prev;
+    if (nextPrev != a.first) {
+      if (anchor.get() != a) return;
+      if (!PREV.compareAndSet(next, nextPrev, a.first)) return;
+    }
+    anchor.compareAndSet(a, new Anchor<Item>(a.first, a.last, STABLE, a.size));
+  }
+
+  private void stabilizeLast(Anchor<Item> a) {
+
+    Node<Item> prev = a.last.prev;
+    if (anchor.get() != a) return;
+
+    Node<Item> prevNext = prev.next;
+    if (prevNext != a.last) {
+      if (anchor.get() != a) return;
+      if (!NEXT.compareAndSet(prev, prevNext, a.last)) return;
+    }
+    anchor.compareAndSet(a, new Anchor<Item>(a.first, a.last, STABLE, a.size));
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // unit testing, compares against Deque and then stress tests
+  // producers and consumers on both ends
+  public static void main(String[] args) throws InterruptedException {
+
+    ConcurrentDeque<Integer> d = new ConcurrentDeque<Integer>();
+
+    print("Initialization was correct");
+    assert (d.isEmpty());
+    assert (d.size() == 0);
+    assert (d.removeFirst() == null);
+    assert (d.removeLast() == null);
+    print("Passed");
+
+    print("Check random operations against Deque");
+    Deque<Integer> linked = new Deque<Integer>();
+    for (int k = 0; k < 200000; k++) {
+      int op = StdRandom.uniform(k % 20000 < 10000 ? 3 : 5);
+      if (op == 0) {
+        d.addFirst(k);
+        linked.addFirst(k);
+      } else if (op == 1 || op == 2) {
+        d.addLast(k);
+        linked.addLast(k);
+      } else if (!linked.isEmpty()) {
+        if (k % 2 == 0) {
+          assert (d.removeFirst().equals(linked.removeFirst()));
+        } else {
+          assert (d.removeLast().equals(linked.removeLast()));
+        }
+      }
+      assert (d.size() == linked.size());
+    }
+    while (!linked.isEmpty()) {
+      assert (d.removeFirst().equals(linked.removeFirst()));
+    }
+    assert (d.removeLast() == null);
+    print("Passed");
+
+    print("Check that every item is taken exactly once");
+    int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+    for (int round = 0; round < 5; round++) {
+      stress(500000, threads);
+    }
+    print("Passed");
+
+    print("Operations Successful");
+  }
+
+  // Half the threads add items at both ends, the others remove at both
+  // ends. Items a producer adds at one end in order must leave from the
+  // other end in the same order, so every consumer checks that too.
+  private static void stress(final int N, int threads)
+    throws InterruptedException {
+
+    final ConcurrentDeque<Integer> d = new ConcurrentDeque<Integer>();
+    final AtomicIntegerArray taken = new AtomicIntegerArray(N);
+    final int producers = threads / 2;
+    final int consumers = threads - producers;
+    final boolean[] failed = new boolean[consumers];
+
+    Thread[] workers = new Thread[threads];
+    for (int k = 0; k < producers; k++) {
+      final int producer = k;
+      workers[k] = new Thread() {
+        public void run() {
+          // Item i belongs to producer i % producers, even items go at
+          // the end and odd ones at the front
+          for (int i = producer; i < N; i += producers) {
+            if (i / producers % 2 == 0) {
+              d.addLast(i);
+            } else {
+              d.addFirst(i);
+            }
+          }
+        }
+      };
+    }
+    final AtomicInteger count = new AtomicInteger();
+    for (int k = 0; k < consumers; k++) {
+      final int consumer = k;
+      workers[producers + k] = new Thread() {
+        public void run() {
+          // the last item seen from each producer and end
+          int[] lastAtFront = new int[producers];
+          int[] lastAtEnd = new int[producers];
+          Arrays.fill(lastAtFront, -1);
+          Arrays.fill(lastAtEnd, -1);
+
+          ThreadLocalRandom random = ThreadLocalRandom.current();
+          while (count.get() < N) {
+            boolean front = random.nextBoolean();
+            Integer item = front ? d.removeFirst() : d.removeLast();
+            if (item == null) continue;
+            taken.incrementAndGet(item);
+            count.incrementAndGet();
+
+            // Items added at the end leave the front in order,
+            // items added at the front leave the end in order
+            int producer = item % producers;
+            boolean atEnd = item / producers % 2 == 0;
+            if (front && atEnd) {
+              if (item < lastAtFront[producer]) failed[consumer] = true;
+              lastAtFront[producer] = item;
+            } else if (!front && !atEnd) {
+              if (item < lastAtEnd[producer]) failed[consumer] = true;
+              lastAtEnd[producer] = item;
+            }
+          }
+        }
+      };
+    }
+    for (Thread worker : workers) {
+      worker.start();
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    assert (d.isEmpty());
+    for (int i = 0; i < N; i++) {
+      assert (taken.get(i) == 1);
+    }
+    for (boolean f : failed) {
+      assert (!f);
+    }
+  }
+}
@@ -0,0 +1,235 @@
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConcurrentDequeBenchmark {
+
+  private static final long MEASUREMENT_NANOS = 1000000000L;
+
+  // The same operations on every deque, add returns nothing and
+  // remove returns null when there was nothing to take
+  private interface Ops {
+    void addFirst(Integer item);
+    void addLast(Integer item);
+    Integer removeFirst();
+    Integer removeLast();
+  }
+
+  // usage: java ConcurrentDequeBenchmark [maxThreads]
+  // Counts operations per second with 1, 2, 4 ... maxThreads threads.
+  // In the shared test every thread adds and removes at random ends of
+  // one deque. In the stealing test one owner adds and removes at the
+  // end of its deque and the other threads steal from the front.
+  public static void main(String[] args) throws InterruptedException {
+
+    int cores = Runtime.getRuntime().availableProcessors();
+    int maxThreads = args.length > 0 ? Integer.parseInt(args[0])
+                                     : Math.max(4, 2 * cores);
+    System.out.printf("%d cores%n", cores);
+
+    for (int threads = 1; threads <= maxThreads; threads *= 2) {
+      report("shared", "synchronized Deque", threads,
+             shared(synchronizedDeque(), threads));
+      report("shared", "ConcurrentLinkedDeque", threads,
+             shared(concurrentLinkedDeque(), threads));
+      report("shared", "ConcurrentDeque", threads,
+             shared(concurrentDeque(), threads));
+    }
+    for (int threads = 1; threads <= maxThreads; threads *= 2) {
+      report("stealing", "synchronized Deque", threads,
+             stealing(synchronizedDeque(), threads));
+      report("stealing", "ConcurrentDeque", threads,
+             stealing(concurrentDeque(), threads));
+      report("stealing", "WorkStealingDeque", threads,
+             stealing(workStealingDeque(), threads));
+    }
+  }
+
+  private static void report(String test, String name, int threads,
+                             long ops) {
+    System.out.printf("%-9s %-22s %3d threads %8.2f Mops/s%n", test, name,
+                      threads, ops / (MEASUREMENT_NANOS / 1e3));
+  }
+
+  // Every thread adds an item and removes one, at random ends
+  private static long shared(final Ops d, int threads)
+    throws InterruptedException {
+
+    for (int i = 0; i < 1000; i++) {
+      d.addLast(i);
+    }
+    final AtomicBoolean stop = new AtomicBoolean();
+    final AtomicLong ops = new AtomicLong();
+    final CountDownLatch start = new CountDownLatch(1);
+
+    Thread[] workers = new Thread[threads];
+    for (int k = 0; k < threads; k++) {
+      workers[k] = new Thread() {
+        public void run() {
+          ThreadLocalRandom random = ThreadLocalRandom.current();
+          Integer item = 1;
+          long count = 0;
+          await(start);
+          while (!stop.get()) {
+            if (random.nextBoolean()) {
+              d.addFirst(item);
+            } else {
+              d.addLast(item);
+            }
+            Integer taken = random.nextBoolean() ? d.removeFirst()
+                                                 : d.removeLast();
+            if (taken != null) item = taken;
+            count += 2;
+          }
+          ops.addAndGet(count);
+        }
+      };
+      workers[k].start();
+    }
+    measure(start, stop, workers);
+    return ops.get();
+  }
+
+  // The owner adds items and takes some back, like a thread that
+  // splits work, the others steal
+  private static long stealing(final Ops d, int threads)
+    throws InterruptedException {
+
+    final AtomicBoolean stop = new AtomicBoolean();
+    final AtomicLong ops = new AtomicLong();
+    final CountDownLatch start = new CountDownLatch(1);
+
+    Thread[] workers = new Thread[threads];
+    workers[0] = new Thread() {
+      public void run() {
+        Integer item = 1;
+        long count = 0;
+        await(start);
+        while (!stop.get()) {
+          // Two in and at most two back, so the deque stays small
+          d.addLast(item);
+          d.addLast(item);
+          count += 2;
+          if (d.removeLast() != null) count++;
+          if (d.removeLast() != null) count++;
+        }
+        ops.addAndGet(count);
+      }
+    };
+    for (int k = 1; k < threads; k++) {
+      workers[k] = new Thread() {
+        public void run() {
+          long count = 0;
+          await(start);
+          while (!stop.get()) {
+            if (d.removeFirst() != null) count++;
+          }
+          ops.addAndGet(count);
+        }
+      };
+    }
+    for (Thread worker : workers) {
+      worker.start();
+    }
+    measure(start, stop, workers);
+    return ops.get();
+  }
+
+  private static void measure(CountDownLatch start, AtomicBoolean stop,
+                              Thread[] workers)
+    throws InterruptedException {
+
+    start.countDown();
+    Thread.sleep(MEASUREMENT_NANOS / 1000000);
+    stop.set(true);
+    for (Thread worker : workers) {
+      worker.join();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Deque locked as a whole, the way callers had to use it so far
+  private static Ops synchronizedDeque() {
+    final Deque<Integer> d = new Deque<Integer>();
+    return new Ops() {
+      public synchronized void addFirst(Integer item) {
+        d.addFirst(item);
+      }
+      public synchronized void addLast(Integer item) {
+        d.addLast(item);
+      }
+      public synchronized Integer removeFirst() {
+        return d.isEmpty() ? null : d.removeFirst();
+      }
+      public synchronized Integer removeLast() {
+        return d.isEmpty() ? null : d.removeLast();
+      }
+    };
+  }
+
+  private static Ops concurrentLinkedDeque() {
+    final ConcurrentLinkedDeque<Integer> d =
+      new ConcurrentLinkedDeque<Integer>();
+    return new Ops() {
+      public void addFirst(Integer item) {
+        d.addFirst(item);
+      }
+      public void addLast(Integer item) {
+        d.addLast(item);
+      }
+      public Integer removeFirst() {
+        return d.pollFirst();
+      }
+      public Integer removeLast() {
+        return d.pollLast();
+      }
+    };
+  }
+
+  private static Ops concurrentDeque() {
+    final ConcurrentDeque<Integer> d = new ConcurrentDeque<Integer>();
+    return new Ops() {
+      public void addFirst(Integer item) {
+        d.addFirst(item);
+      }
+      public void addLast(Integer item) {
+        d.addLast(item);
+      }
+      public Integer removeFirst() {
+        return d.removeFirst();
+      }
+      public Integer removeLast() {
+        return d.removeLast();
+      }
+    };
+  }
+
+  // Only the stealing test, addFirst is not there and only the owner
+  // may add or remove at the end
+  private static Ops workStealingDeque() {
+    final WorkStealingDeque<Integer> d = new WorkStealingDeque<Integer>();
+    return new Ops() {
+      public void addFirst(Integer item) {
+        throw new UnsupportedOperationException();
+      }
+      public void addLast(Integer item) {
+        d.addLast(item);
+      }
+      public Integer removeFirst() {
+        return d.removeFirst();
+      }
+      public Integer removeLast() {
+        return d.removeLast();
+      }
+    };
+  }
+}
@@ -1,3 +1,4 @@
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -6,6 +7,7 @@ public class Deque<Item> implements Iterable<Item> {
   private Node head;
   private Node tail;
   private int size;
+  private int modCount;             // structural changes, for iterators
 
   // construct an empty deque
   public Deque() {
@@ -64,6 +66,7 @@ public class Deque<Item> implements Iterable<Item> {
     head.next = newNode;
     newNode = null;
     size++;
+    modCount++;
   }
 
   // add the item to the end
@@ -86,6 +89,7 @@ public class Deque<Item> implements Iterable<Item> {
     tail.prev = newNode;
     newNode = null;
     size++;
+    modCount++;
   }
 
   // remove and return the item from the front
@@ -94,10 +98,19 @@ public class Deque<Item> implements Iterable<Item> {
     if (isEmpty()) throw new NoSuchElementException();
 
     // Have the second item or tail, point back to head
-    Item item = head.next.item;
-    head.next.next.prev = head;
-    head.next = head.next.next;
+    Node first = head.next;
+    Item item = first.item;
+    first.next.prev = head;
+    head.next = first.next;
     size--;
+    modCount++;
+
+    // Nothing may keep the item or its neighbors alive
+    // through the removed node, iterators that still sit on it
+    // see modCount changed and never follow its links
+    first.item = null;
+    first.next = null;
+    first.prev = null;
     return item;
   }
 
@@ -106,14 +119,21 @@ public class Deque<Item> implements Iterable<Item> {
 
     if (isEmpty()) throw new NoSuchElementException();
 
-    Item item = tail.prev.item;
-    tail.prev.prev.next = tail;
-    tail.prev = tail.prev.prev;
+    Node last = tail.prev;
+    Item item = last.item;
+    last.prev.next = tail;
+    tail.prev = last.prev;
     size--;
+    modCount++;
+
+    last.item = null;
+    last.next = null;
+    last.prev = null;
     return item;
   }
 
-  // return an iterator over items in order from front to end
+  // return an iterator over items in order from front to end, it
+  // throws ConcurrentModificationException once the deque changed
   public Iterator<Item> iterator() {
     return new DequeIterator();
   }
@@ -121,6 +141,7 @@ public class Deque<Item> implements Iterable<Item> {
   private class DequeIterator implements Iterator<Item> {
 
     private Node current;
+    private final int expectedModCount = modCount;
 
     public DequeIterator() {
       assert (head != null);
@@ -128,6 +149,10 @@ public class Deque<Item> implements Iterable<Item> {
       current = head;
     }
     public boolean hasNext() {
+      // current may have been removed and unlinked
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
       assert (tail != null);
       assert (tail.next == null);
       return current.next != tail;
@@ -279,6 +304,26 @@ public class Deque<Item> implements Iterable<Item> {
     assert (d.size() == 1);
     print("Passed");
 
+    print("Check that iterators fail fast on a removed node");
+    d.addLast(1);
+    Iterator<Integer> iterator = d.iterator();
+    iterator.next();
+    d.removeFirst();
+    try {
+      iterator.next();
+      assert (false);
+    } catch (ConcurrentModificationException e) {
+      // expected
+    }
+    iterator = d.iterator();
+    d.addLast(2);
+    try {
+      iterator.hasNext();
+      assert (false);
+    } catch (ConcurrentModificationException e) {
+      // expected
+    }
+    print("Passed");
 
     print("Operations Successful");
 
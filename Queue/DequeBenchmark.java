@@ -0,0 +1,87 @@
+import java.lang.management.ManagementFactory;
+
+public class DequeBenchmark {
+
+  private static final int RUNS = 5;
+
+  // usage: java DequeBenchmark [N]
+  // Times a producer consumer pattern and iteration over N items on
+  // Deque, RingDeque and IntDeque, with the bytes allocated per item
+  public static void main(String[] args) {
+
+    int N = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+    com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+
+    // The same boxed items for both, so only the deques allocate
+    Integer[] items = new Integer[N];
+    for (int i = 0; i < N; i++) {
+      items[i] = i;
+    }
+
+    for (int run = 0; run < RUNS; run++) {
+      long sum = 0;
+
+      Deque<Integer> linked = new Deque<Integer>();
+      long allocated = threads.getThreadAllocatedBytes(thread);
+      long start = System.nanoTime();
+      for (int i = 0; i < N; i++) {
+        linked.addLast(items[i]);
+        if (i % 4 == 3) sum += linked.removeFirst();
+      }
+      long queueTime = System.nanoTime() - start;
+      long queueBytes = threads.getThreadAllocatedBytes(thread) - allocated;
+      start = System.nanoTime();
+      for (int item : linked) {
+        sum += item;
+      }
+      long iterateTime = System.nanoTime() - start;
+      report("Deque", N, queueTime, queueBytes, iterateTime);
+
+      RingDeque<Integer> ring = new RingDeque<Integer>();
+      allocated = threads.getThreadAllocatedBytes(thread);
+      start = System.nanoTime();
+      for (int i = 0; i < N; i++) {
+        ring.addLast(items[i]);
+        if (i % 4 == 3) sum += ring.removeFirst();
+      }
+      queueTime = System.nanoTime() - start;
+      queueBytes = threads.getThreadAllocatedBytes(thread) - allocated;
+      start = System.nanoTime();
+      for (int item : ring) {
+        sum += item;
+      }
+      iterateTime = System.nanoTime() - start;
+      report("RingDeque", N, queueTime, queueBytes, iterateTime);
+
+      // Unboxed, so the ints go in as they are
+      IntDeque ints = new IntDeque();
+      allocated = threads.getThreadAllocatedBytes(thread);
+      start = System.nanoTime();
+      for (int i = 0; i < N; i++) {
+        ints.addLast(i);
+        if (i % 4 == 3) sum += ints.removeFirst();
+      }
+      queueTime = System.nanoTime() - start;
+      queueBytes = threads.getThreadAllocatedBytes(thread) - allocated;
+      start = System.nanoTime();
+      for (int i = 0; i < ints.size(); i++) {
+        sum += ints.get(i);
+      }
+      iterateTime = System.nanoTime() - start;
+      report("IntDeque", N, queueTime, queueBytes, iterateTime);
+
+      if (sum == 42) System.out.println();
+    }
+  }
+
+  private static void report(String name, int N, long queueTime,
+                             long queueBytes, long iterateTime) {
+    System.out.printf("%-10s add/remove %6.1f ns/item %6.1f bytes/item,"
+                      + " iterate %5.1f ns/item%n", name,
+                      queueTime / (double) N, queueBytes / (double) N,
+                      iterateTime / (0.75 * N));
+  }
+}
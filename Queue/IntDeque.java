@@ -0,0 +1,191 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+public class IntDeque {
+
+  private static final int MIN_CAPACITY = 8;
+
+  private int[] items;
+  private int head;                 // index of the first item
+  private int size;
+
+  // RingDeque of ints, with no boxing. The array only changes when
+  // it doubles or halves, so adding and removing allocate nothing
+  // in between.
+  public IntDeque() {
+    items = new int[MIN_CAPACITY];
+  }
+
+  // is the deque empty?
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  // return the number of items on the deque
+  public int size() {
+    return size;
+  }
+
+  // add the item to the front
+  public void addFirst(int item) {
+    if (size == items.length) changeCapacityTo(2 * items.length);
+    head = (head - 1) & (items.length - 1);
+    items[head] = item;
+    size++;
+  }
+
+  // add the item to the end
+  public void addLast(int item) {
+    if (size == items.length) changeCapacityTo(2 * items.length);
+    items[(head + size) & (items.length - 1)] = item;
+    size++;
+  }
+
+  // remove and return the item from the front
+  public int removeFirst() {
+
+    if (isEmpty()) throw new NoSuchElementException();
+
+    int item = items[head];
+    head = (head + 1) & (items.length - 1);
+    size--;
+
+    shrink();
+    return item;
+  }
+
+  // remove and return the item from the end
+  public int removeLast() {
+
+    if (isEmpty()) throw new NoSuchElementException();
+
+    int item = items[(head + size - 1) & (items.length - 1)];
+    size--;
+
+    shrink();
+    return item;
+  }
+
+  // return the item at position i from the front
+  public int get(int i) {
+    if (i < 0 || i >= size) throw new IndexOutOfBoundsException();
+    return items[(head + i) & (items.length - 1)];
+  }
+
+  // call action with every item from front to end, the deque
+  // must not change meanwhile
+  public void forEach(IntConsumer action) {
+
+    // The items are in at most two runs of the array
+    int first = Math.min(size, items.length - head);
+    for (int k = head; k < head + first; k++) {
+      action.accept(items[k]);
+    }
+    for (int k = 0; k < size - first; k++) {
+      action.accept(items[k]);
+    }
+  }
+
+  private void shrink() {
+    if (items.length > MIN_CAPACITY && size < items.length / 4) {
+      changeCapacityTo(items.length / 2);
+    }
+  }
+
+  // Copy the items to the front of a new array, in order
+  private void changeCapacityTo(int newCapacity) {
+
+    assert (size <= newCapacity);
+    int[] temp = new int[newCapacity];
+
+    int first = Math.min(size, items.length - head);
+    System.arraycopy(items, head, temp, 0, first);
+    System.arraycopy(items, 0, temp, first, size - first);
+    items = temp;
+    head = 0;
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // unit testing, compares against RingDeque
+  public static void main(String[] args) {
+
+    IntDeque d = new IntDeque();
+
+    print("Initialization was correct");
+    assert (d.isEmpty());
+    assert (d.size() == 0);
+    d.forEach(new IntConsumer() {
+      public void accept(int item) {
+        assert (false);
+      }
+    });
+    print("Passed");
+
+    print("Check wrapping around both ends");
+    for (int i = 0; i < 5; i++) {
+      d.addFirst(-i);
+      d.addLast(i);
+    }
+    assert (d.size() == 10);
+    final int[] order = { -4, -3, -2, -1, 0, 0, 1, 2, 3, 4 };
+    final int[] position = new int[1];
+    d.forEach(new IntConsumer() {
+      public void accept(int item) {
+        assert (item == order[position[0]++]);
+      }
+    });
+    assert (position[0] == 10);
+    for (int i = 0; i < 10; i++) {
+      assert (d.get(i) == order[i]);
+    }
+    assert (d.removeFirst() == -4);
+    assert (d.removeLast() == 4);
+    print("Passed");
+
+    print("Check random operations against RingDeque");
+    IntDeque ints = new IntDeque();
+    RingDeque<Integer> ring = new RingDeque<Integer>();
+    for (int k = 0; k < 200000; k++) {
+      int op = StdRandom.uniform(k % 20000 < 10000 ? 3 : 5);
+      if (op == 0) {
+        ints.addFirst(k);
+        ring.addFirst(k);
+      } else if (op == 1 || op == 2) {
+        ints.addLast(k);
+        ring.addLast(k);
+      } else if (!ring.isEmpty()) {
+        if (k % 2 == 0) {
+          assert (ints.removeFirst() == ring.removeFirst());
+        } else {
+          assert (ints.removeLast() == ring.removeLast());
+        }
+      }
+      assert (ints.size() == ring.size());
+    }
+    final Iterator<Integer> expected = ring.iterator();
+    ints.forEach(new IntConsumer() {
+      public void accept(int item) {
+        assert (expected.next() == item);
+      }
+    });
+    assert (!expected.hasNext());
+    print("Passed");
+
+    print("Check that the array shrinks again");
+    IntDeque big = new IntDeque();
+    for (int i = 0; i < 1000000; i++) {
+      big.addLast(i);
+    }
+    for (int i = 0; i < 1000000; i++) {
+      assert (big.removeFirst() == i);
+    }
+    assert (big.items.length == MIN_CAPACITY);
+    print("Passed");
+
+    print("Operations Successful");
+  }
+}
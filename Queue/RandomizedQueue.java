@@ -1,3 +1,5 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -6,6 +8,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
   private Item[] queueArray;
   private int currentCapacity;
   private int amountItems;
+  private int modCount;             // enqueues and dequeues, for iterators
 
   // construct an empty randomized queue
   public RandomizedQueue() {
@@ -33,6 +36,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
       changeCapacityTo(2 * currentCapacity);
     }
     queueArray[amountItems++] = item;
+    modCount++;
   }
 
   // remove and return a random item
@@ -46,6 +50,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
     queueArray[rand] = queueArray[amountItems - 1];
     queueArray[amountItems - 1] = null;
     amountItems--;
+    modCount++;
 
     if (amountItems < (currentCapacity / 4)) {
       changeCapacityTo(currentCapacity / 2);
@@ -78,26 +83,177 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
     }
   }
 
-  // return an independent iterator over items in random order
+  // return an independent iterator over items in random order, it
+  // throws ConcurrentModificationException once the queue changed
   public Iterator<Item> iterator() {
     return new RandomizedQueueIterator();
   }
 
+  // Fisher-Yates shuffle of the indices, done one step per item. Step k
+  // swaps a random index from k on into place k and returns it. Indices
+  // that were never swapped are equal to their place, so only the swapped
+  // ones are stored, and an iterator that returns k items costs O(k) time
+  // and memory, nothing up front. Once a sixteenth of the places are
+  // swapped the items left go into a plain array of just those items
+  // and are shuffled there, which is faster than the map by then.
   private class RandomizedQueueIterator implements Iterator<Item> {
 
+    private final int size = amountItems;
+    private final int expectedModCount = modCount;
+    private SwapMap swapped = new SwapMap();
+    private Item[] items;             // places from base on
+    private int base;
     private int position;
 
-    public RandomizedQueueIterator() {
-      position = 0;
+    public boolean hasNext() {
+      return position < size;
+    }
+    public Item next() {
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      if (!hasNext()) throw new NoSuchElementException();
+
+      int rand = StdRandom.uniform(position, size);
+      Item item;
+      if (items != null) {
+        item = items[rand - base];
+        items[rand - base] = items[position - base];
+        items[position - base] = null;
+      } else {
+        item = queueArray[swapped.get(rand)];
+
+        // Place position is never looked at again, only rand keeps
+        // what was there
+        if (rand != position) swapped.put(rand, swapped.get(position));
+        if (swapped.size() > size / 16) toArray();
+      }
+      position++;
+      return item;
+    }
+    // The array never leaves the iterator, it only holds Items
+    @SuppressWarnings("unchecked")
+    private void toArray() {
+      base = position + 1;
+      items = (Item[]) new Object[size - base];
+      for (int i = base; i < size; i++) {
+        items[i - base] = queueArray[swapped.get(i)];
+      }
+      swapped = null;
+    }
+    public void remove() {
+      // Does not support this operation
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  // Map from int to int in open addressing, keys not in it map to
+  // themselves. It only grows, an iterator uses one and drops it.
+  private static final class SwapMap {
+
+    private int[] keys = new int[16];          // key + 1, 0 if empty
+    private int[] values = new int[16];
+    private int size;
+
+    int size() {
+      return size;
+    }
+
+    int get(int key) {
+      int mask = keys.length - 1;
+      for (int i = hash(key) & mask; keys[i] != 0; i = (i + 1) & mask) {
+        if (keys[i] == key + 1) return values[i];
+      }
+      return key;
+    }
+
+    void put(int key, int value) {
+      int mask = keys.length - 1;
+      int i = hash(key) & mask;
+      while (keys[i] != 0 && keys[i] != key + 1) {
+        i = (i + 1) & mask;
+      }
+      values[i] = value;
+      if (keys[i] == 0) {
+        keys[i] = key + 1;
+        if (++size > keys.length / 2) grow();
+      }
+    }
+
+    private void grow() {
+      int[] oldKeys = keys;
+      int[] oldValues = values;
+      keys = new int[2 * oldKeys.length];
+      values = new int[2 * oldKeys.length];
+      size = 0;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != 0) put(oldKeys[i] - 1, oldValues[i]);
+      }
+    }
+
+    private static int hash(int key) {
+      return (key * 0x9E3779B9) >>> 7;
+    }
+  }
+
+  // return an independent iterator over items in random order that
+  // uses O(1) memory, it throws ConcurrentModificationException once
+  // the queue changed. The order comes from a keyed permutation, not
+  // every order is equally likely like with iterator().
+  public Iterator<Item> permutedIterator() {
+    return new PermutedIterator();
+  }
+
+  // A 4 round Feistel network is a permutation of all numbers with an
+  // even number of bits, for every choice of round keys. Numbers from
+  // 0 on go through it, the ones that come out as size or more are
+  // skipped. The domain is less than 4 times size, so that is less
+  // than 4 tries per item on average.
+  private class PermutedIterator implements Iterator<Item> {
+
+    private final int size = amountItems;
+    private final int expectedModCount = modCount;
+    private final int halfBits;
+    private final int[] roundKeys = new int[4];
+    private long counter;
+    private int returned;
+
+    public PermutedIterator() {
+      int bits = 2;
+      while ((1L << bits) < size) bits += 2;
+      halfBits = bits / 2;
+      for (int r = 0; r < roundKeys.length; r++) {
+        roundKeys[r] = StdRandom.uniform(Integer.MAX_VALUE);
+      }
     }
     public boolean hasNext() {
-      return position < amountItems;
+      return returned < size;
     }
     public Item next() {
-      if (this.hasNext()) {
-        return queueArray[position++];
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      if (!hasNext()) throw new NoSuchElementException();
+
+      long index;
+      do {
+        index = permute(counter++);
+      } while (index >= size);
+      returned++;
+      return queueArray[(int) index];
+    }
+    private long permute(long value) {
+      int mask = (1 << halfBits) - 1;
+      int left = (int) (value >>> halfBits);
+      int right = (int) value & mask;
+      for (int key : roundKeys) {
+        int mixed = (right ^ key) * 0x2C1B3C6D;
+        mixed ^= mixed >>> 15;
+        int next = left ^ ((mixed * 0x297A2D39 >>> 11) & mask);
+        left = right;
+        right = next;
       }
-      throw new NoSuchElementException();
+      return ((long) left << halfBits) | right;
     }
     public void remove() {
       // Does not support this operation
@@ -184,10 +340,75 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
       r.enqueue(i);
     }
 
-    print("Check if items are in the right order");
-    for (int it : r) {
-      print("\t" + Integer.toString(it));
+    print("Check if both iterators return every item once");
+    for (int n = 0; n < 300; n++) {
+      RandomizedQueue<Integer> q = new RandomizedQueue<Integer>();
+      for (int i = 0; i < n; i++) {
+        q.enqueue(i);
+      }
+      for (Iterator<Integer> iterator : Arrays.asList(q.iterator(),
+                                                     q.permutedIterator())) {
+        boolean[] seen = new boolean[n];
+        int count = 0;
+        while (iterator.hasNext()) {
+          int it = iterator.next();
+          assert (!seen[it]);
+          seen[it] = true;
+          count++;
+        }
+        assert (count == n);
+      }
     }
+    print("Passed");
+
+    print("Check if iterators are independent and fail fast");
+    Iterator<Integer> first = r.iterator();
+    Iterator<Integer> second = r.iterator();
+    int[] firstOrder = new int[10];
+    for (int i = 0; i < 10; i++) {
+      firstOrder[i] = first.next();
+    }
+    boolean differ = false;
+    for (int i = 0; i < 10; i++) {
+      differ |= second.next() != firstOrder[i];
+    }
+    // Equal by chance once in 10! times
+    assert (differ);
+    assert (!first.hasNext() && !second.hasNext());
+    Iterator<Integer> stale = r.permutedIterator();
+    r.enqueue(10);
+    try {
+      stale.next();
+      assert (false);
+    } catch (ConcurrentModificationException e) {
+      // expected
+    }
+    r.dequeue();
+    print("Passed");
+
+    print("Check if every order of 3 items is about equally likely");
+    RandomizedQueue<Integer> three = new RandomizedQueue<Integer>();
+    for (int i = 0; i < 3; i++) {
+      three.enqueue(i);
+    }
+    int[] orders = new int[27];
+    int trials = 60000;
+    for (int t = 0; t < trials; t++) {
+      int code = 0;
+      for (int it : three) {
+        code = 3 * code + it;
+      }
+      orders[code]++;
+    }
+    int found = 0;
+    for (int code = 0; code < 27; code++) {
+      // 10000 of each order expected, 500 is 5 standard deviations
+      int count = orders[code];
+      if (count > 0) found++;
+      assert (count == 0 || Math.abs(count - trials / 6) < 500);
+    }
+    assert (found == 6);
+    print("Passed");
 
     print("Delete all items from the RandomizedQueue");
     for (int i = 0; i < 10; i++) {
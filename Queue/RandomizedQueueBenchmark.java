@@ -0,0 +1,73 @@
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+
+public class RandomizedQueueBenchmark {
+
+  private static final int RUNS = 5;
+
+  // usage: java RandomizedQueueBenchmark [N]
+  // Times taking the first item, the first 1000 items and all items
+  // in random order from a RandomizedQueue of N items, by copying and
+  // shuffling up front, with iterator() and with permutedIterator(),
+  // with the bytes allocated for each
+  public static void main(String[] args) {
+
+    int N = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+
+    Integer[] items = new Integer[N];
+    RandomizedQueue<Integer> queue = new RandomizedQueue<Integer>();
+    for (int i = 0; i < N; i++) {
+      items[i] = i;
+      queue.enqueue(items[i]);
+    }
+
+    for (int run = 0; run < RUNS; run++) {
+      for (int take : new int[] { 1, 1000, N }) {
+        measure("copy+shuffle", items, queue, take, 0);
+        measure("iterator", items, queue, take, 1);
+        measure("permuted", items, queue, take, 2);
+      }
+    }
+  }
+
+  private static void measure(String name, Integer[] items,
+                              RandomizedQueue<Integer> queue, int take,
+                              int kind) {
+
+    com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+
+    long allocated = threads.getThreadAllocatedBytes(thread);
+    long start = System.nanoTime();
+    long sum = 0;
+    if (kind == 0) {
+      // What a correct iterator costs when it copies the queue's
+      // array and shuffles it up front
+      int n = items.length;
+      Object[] copy = new Object[n];
+      System.arraycopy(items, 0, copy, 0, n);
+      for (int i = 0; i < n; i++) {
+        int r = StdRandom.uniform(i, n);
+        Object swap = copy[i];
+        copy[i] = copy[r];
+        copy[r] = swap;
+      }
+      for (int i = 0; i < take; i++) {
+        sum += (Integer) copy[i];
+      }
+    } else {
+      Iterator<Integer> it = kind == 1 ? queue.iterator()
+                                       : queue.permutedIterator();
+      for (int i = 0; i < take; i++) {
+        sum += it.next();
+      }
+    }
+    long time = System.nanoTime() - start;
+    allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+
+    if (sum == -1) System.out.println();
+    System.out.printf("%-13s first %8d items %10.3f ms %12d bytes%n", name,
+                      take, time / 1e6, allocated);
+  }
+}
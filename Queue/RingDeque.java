@@ -0,0 +1,234 @@
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class RingDeque<Item> implements Iterable<Item> {
+
+  private static final int MIN_CAPACITY = 8;
+
+  private Item[] items;
+  private int head;                 // index of the first item
+  private int size;
+  private int modCount;             // structural changes, for iterators
+
+  // Deque in a circular array whose length is a power of two, so an
+  // index wraps around with a mask. Adding an item allocates nothing
+  // unless the array is full, then it doubles, and it halves once it
+  // is a quarter full. Removed slots are cleared right away.
+  public RingDeque() {
+    items = (Item[]) new Object[MIN_CAPACITY];
+  }
+
+  // is the deque empty?
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  // return the number of items on the deque
+  public int size() {
+    return size;
+  }
+
+  // add the item to the front
+  public void addFirst(Item item) {
+
+    if (item == null) throw new NullPointerException();
+
+    if (size == items.length) changeCapacityTo(2 * items.length);
+    head = (head - 1) & (items.length - 1);
+    items[head] = item;
+    size++;
+    modCount++;
+  }
+
+  // add the item to the end
+  public void addLast(Item item) {
+
+    if (item == null) throw new NullPointerException();
+
+    if (size == items.length) changeCapacityTo(2 * items.length);
+    items[(head + size) & (items.length - 1)] = item;
+    size++;
+    modCount++;
+  }
+
+  // remove and return the item from the front
+  public Item removeFirst() {
+
+    if (isEmpty()) throw new NoSuchElementException();
+
+    Item item = items[head];
+    items[head] = null;
+    head = (head + 1) & (items.length - 1);
+    size--;
+    modCount++;
+
+    shrink();
+    return item;
+  }
+
+  // remove and return the item from the end
+  public Item removeLast() {
+
+    if (isEmpty()) throw new NoSuchElementException();
+
+    int last = (head + size - 1) & (items.length - 1);
+    Item item = items[last];
+    items[last] = null;
+    size--;
+    modCount++;
+
+    shrink();
+    return item;
+  }
+
+  private int capacity() {
+    return items.length;
+  }
+
+  private void shrink() {
+    if (items.length > MIN_CAPACITY && size < items.length / 4) {
+      changeCapacityTo(items.length / 2);
+    }
+  }
+
+  // Copy the items to the front of a new array, in order
+  private void changeCapacityTo(int newCapacity) {
+
+    assert (size <= newCapacity);
+    Item[] temp = (Item[]) new Object[newCapacity];
+
+    int first = Math.min(size, items.length - head);
+    System.arraycopy(items, head, temp, 0, first);
+    System.arraycopy(items, 0, temp, first, size - first);
+    items = temp;
+    head = 0;
+  }
+
+  // return an iterator over items in order from front to end, it
+  // throws ConcurrentModificationException once the deque changed
+  public Iterator<Item> iterator() {
+    return new RingDequeIterator();
+  }
+
+  private class RingDequeIterator implements Iterator<Item> {
+
+    private int position;
+    private final int expectedModCount = modCount;
+
+    public boolean hasNext() {
+      return position < size;
+    }
+    public Item next() {
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      if (hasNext()) {
+        return items[(head + position++) & (items.length - 1)];
+      }
+      throw new NoSuchElementException();
+    }
+    public void remove() {
+      // Does not support this operation
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // unit testing, compares against Deque
+  public static void main(String[] args) {
+
+    RingDeque<Integer> d = new RingDeque<Integer>();
+
+    print("Initialization was correct");
+    assert (d.isEmpty());
+    assert (d.size() == 0);
+    for (int it : d) {
+      assert (false);
+    }
+    print("Passed");
+
+    print("Check wrapping around both ends");
+    for (int i = 0; i < 5; i++) {
+      d.addFirst(-i);
+      d.addLast(i);
+    }
+    assert (d.size() == 10);
+    int[] order = { -4, -3, -2, -1, 0, 0, 1, 2, 3, 4 };
+    int position = 0;
+    for (int it : d) {
+      assert (it == order[position++]);
+    }
+    assert (d.removeFirst() == -4);
+    assert (d.removeLast() == 4);
+    print("Passed");
+
+    print("Check random operations against Deque");
+    RingDeque<Integer> ring = new RingDeque<Integer>();
+    Deque<Integer> linked = new Deque<Integer>();
+    for (int k = 0; k < 200000; k++) {
+      int op = StdRandom.uniform(k % 20000 < 10000 ? 3 : 5);
+      if (op == 0) {
+        ring.addFirst(k);
+        linked.addFirst(k);
+      } else if (op == 1 || op == 2) {
+        ring.addLast(k);
+        linked.addLast(k);
+      } else if (!linked.isEmpty()) {
+        if (k % 2 == 0) {
+          assert (ring.removeFirst().equals(linked.removeFirst()));
+        } else {
+          assert (ring.removeLast().equals(linked.removeLast()));
+        }
+      }
+      assert (ring.size() == linked.size());
+    }
+    Iterator<Integer> expectedItems = linked.iterator();
+    for (int it : ring) {
+      assert (expectedItems.next() == it);
+    }
+    assert (!expectedItems.hasNext());
+    print("Passed");
+
+    print("Check that removed slots are cleared");
+    RingDeque<Object> cleared = new RingDeque<Object>();
+    for (int i = 0; i < 6; i++) {
+      cleared.addLast(new Object());
+    }
+    cleared.removeFirst();
+    cleared.removeLast();
+    int nulls = 0;
+    for (Object slot : cleared.items) {
+      if (slot == null) nulls++;
+    }
+    assert (nulls == cleared.items.length - 4);
+    print("Passed");
+
+    print("Check that iterators fail fast");
+    Iterator<Integer> iterator = ring.iterator();
+    ring.addLast(1);
+    try {
+      iterator.next();
+      assert (false);
+    } catch (ConcurrentModificationException e) {
+      // expected
+    }
+    print("Passed");
+
+    print("Check that the array shrinks again");
+    RingDeque<Integer> big = new RingDeque<Integer>();
+    for (int i = 0; i < 1000000; i++) {
+      big.addLast(i);
+    }
+    for (int i = 0; i < 1000000; i++) {
+      assert (big.removeFirst() == i);
+    }
+    assert (big.capacity() == MIN_CAPACITY);
+    print("Passed");
+
+    print("Operations Successful");
+  }
+}
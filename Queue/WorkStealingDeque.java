@@ -0,0 +1,231 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class WorkStealingDeque<Item> {
+
+  private static final int MIN_CAPACITY = 16;
+
+  // Items are at indices top to bottom - 1, index i goes in slot
+  // i & (length - 1), so indices only grow and never wrap
+  private final AtomicLong top = new AtomicLong();
+  private volatile long bottom;
+  private volatile AtomicReferenceArray<Item> items;
+
+  // Chase-Lev work stealing deque. One thread owns it and adds and
+  // removes at the end like a stack, any number of other threads steal
+  // from the front. The owner only needs a compare-and-set when it
+  // races a thief for the last item, thieves need one per steal.
+  // The array doubles when full and never shrinks. Slots emptied by
+  // thieves keep their reference until the owner overwrites them.
+  public WorkStealingDeque() {
+    items = new AtomicReferenceArray<Item>(MIN_CAPACITY);
+  }
+
+  // is the deque empty? Only a hint while thieves are around
+  public boolean isEmpty() {
+    return bottom <= top.get();
+  }
+
+  // return the number of items on the deque, only a hint while
+  // thieves are around
+  public int size() {
+    return (int) Math.max(0, bottom - top.get());
+  }
+
+  // add the item to the end, owner only
+  public void addLast(Item item) {
+
+    if (item == null) throw new NullPointerException();
+
+    long b = bottom;
+    long t = top.get();
+    AtomicReferenceArray<Item> a = items;
+    if (b - t >= a.length()) {
+      a = grow(a, t, b);
+      items = a;
+    }
+    a.set((int) b & (a.length() - 1), item);
+
+    // Publishes the item to thieves
+    bottom = b + 1;
+  }
+
+  // Copy indices t to b - 1 to an array twice as long. Thieves that
+  // still read the old one find the same items there.
+  private AtomicReferenceArray<Item> grow(AtomicReferenceArray<Item> a,
+                                          long t, long b) {
+
+    AtomicReferenceArray<Item> temp =
+      new AtomicReferenceArray<Item>(2 * a.length());
+    for (long i = t; i < b; i++) {
+      temp.set((int) i & (temp.length() - 1),
+               a.get((int) i & (a.length() - 1)));
+    }
+    return temp;
+  }
+
+  // remove and return the item from the end, or null if the deque
+  // is empty, owner only
+  public Item removeLast() {
+
+    long b = bottom - 1;
+    AtomicReferenceArray<Item> a = items;
+
+    // Claim the index before looking at top, so a thief that comes
+    // later sees it is gone
+    bottom = b;
+    long t = top.get();
+    if (t > b) {
+      bottom = b + 1;
+      return null;
+    }
+
+    int slot = (int) b & (a.length() - 1);
+    Item item = a.get(slot);
+    if (t == b) {
+      // The last item, whoever moves top past it gets it
+      if (!top.compareAndSet(t, t + 1)) item = null;
+      bottom = b + 1;
+    }
+    a.set(slot, null);
+    return item;
+  }
+
+  // remove and return the item from the front, or null if the deque
+  // is empty or another thread took the item first, any thread
+  public Item removeFirst() {
+
+    long t = top.get();
+    long b = bottom;
+    if (t >= b) return null;
+
+    AtomicReferenceArray<Item> a = items;
+    Item item = a.get((int) t & (a.length() - 1));
+
+    // The owner may have wrapped around and reused the slot, but
+    // then top has moved and this fails
+    if (!top.compareAndSet(t, t + 1)) return null;
+    return item;
+  }
+
+  private static void print(String str) {
+    System.out.println(str);
+  }
+
+  // unit testing, then a stress test of one owner against thieves
+  public static void main(String[] args) throws InterruptedException {
+
+    WorkStealingDeque<Integer> d = new WorkStealingDeque<Integer>();
+
+    print("Initialization was correct");
+    assert (d.isEmpty());
+    assert (d.size() == 0);
+    assert (d.removeLast() == null);
+    assert (d.removeFirst() == null);
+    print("Passed");
+
+    print("Check stack order for the owner and queue order for thieves");
+    for (int i = 0; i < 100; i++) {
+      d.addLast(i);
+    }
+    assert (d.size() == 100);
+    assert (d.removeLast() == 99);
+    assert (d.removeFirst() == 0);
+    assert (d.removeFirst() == 1);
+    assert (d.removeLast() == 98);
+    for (int i = 2; i < 98; i++) {
+      assert (d.removeFirst() == i);
+    }
+    assert (d.isEmpty());
+    assert (d.removeLast() == null);
+    assert (d.removeFirst() == null);
+    print("Passed");
+
+    print("Check growing while the window wraps around");
+    int next = 0;
+    for (int i = 0; i < 2000; i += 2) {
+      d.addLast(i);
+      d.addLast(i + 1);
+      assert (d.removeFirst() == next++);
+    }
+    assert (d.size() == 1000);
+    for (int i = 1999; i >= next; i--) {
+      assert (d.removeLast() == i);
+    }
+    assert (d.isEmpty());
+    print("Passed");
+
+    print("Check that every item is taken exactly once");
+    int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    final int N = 2000000;
+    for (int round = 0; round < 5; round++) {
+      stress(N, threads);
+    }
+    print("Passed");
+
+    print("Operations Successful");
+  }
+
+  // The owner adds N items and takes some back, threads - 1 thieves
+  // steal until the owner is done and the deque is empty
+  private static void stress(final int N, int threads)
+    throws InterruptedException {
+
+    final WorkStealingDeque<Integer> d = new WorkStealingDeque<Integer>();
+    final AtomicIntegerArray taken = new AtomicIntegerArray(N);
+    final AtomicLong stolen = new AtomicLong();
+    final AtomicBoolean done = new AtomicBoolean();
+
+    Thread[] thieves = new Thread[threads - 1];
+    for (int k = 0; k < thieves.length; k++) {
+      thieves[k] = new Thread() {
+        public void run() {
+          long count = 0;
+          while (true) {
+            Integer item = d.removeFirst();
+            if (item != null) {
+              taken.incrementAndGet(item);
+              count++;
+            } else if (done.get() && d.isEmpty()) {
+              break;
+            }
+          }
+          stolen.addAndGet(count);
+        }
+      };
+      thieves[k].start();
+    }
+
+    long popped = 0;
+    for (int i = 0; i < N; i++) {
+      d.addLast(i);
+      if (i % 3 == 2) {
+        // Sometimes a run of pops down to an empty deque, to race
+        // the thieves for the last item
+        int pops = i % 1024 == 2 ? 64 : 1;
+        for (int k = 0; k < pops; k++) {
+          Integer item = d.removeLast();
+          if (item == null) break;
+          taken.incrementAndGet(item);
+          popped++;
+        }
+      }
+    }
+    done.set(true);
+    Integer item;
+    while ((item = d.removeLast()) != null) {
+      taken.incrementAndGet(item);
+      popped++;
+    }
+    for (Thread thief : thieves) {
+      thief.join();
+    }
+
+    assert (popped + stolen.get() == N);
+    for (int i = 0; i < N; i++) {
+      assert (taken.get(i) == 1);
+    }
+  }
+}